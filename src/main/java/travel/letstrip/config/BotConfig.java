@@ -1,22 +1,51 @@
 package travel.letstrip.config;
 
-import java.util.ArrayList;
+import travel.letstrip.enums.OverflowPolicy;
+import travel.letstrip.enums.UpdateMode;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 /**
  * Configuration class that holds all necessary parameters for the Telegram Bot,
  * including authentication credentials and a list of managed groups.
+ * <p>
+ * Groups are indexed by chat ID and by name so that lookups take constant time. The
+ * index is an immutable snapshot that is replaced whenever the groups change, which lets
+ * any number of threads look up groups while the configuration is being reloaded.
  */
 public class BotConfig {
     private String botToken;
     private String botUsername;
-    private List<GroupConfig> groups;
+    private volatile List<GroupConfig> groups;
+    private volatile GroupIndex groupIndex = GroupIndex.EMPTY;
+    private final List<GroupConfig> groupsView = new GroupListView();
+    private UpdateMode updateMode = UpdateMode.LONG_POLLING;
+    private String webhookUrl;
+    private int webhookPort = 8443;
+    private String webhookPath = "/webhook";
+    private String webhookSecretToken;
+    private int dispatchQueueCapacity = 10_000;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private int updateLogSampleRate = 1;
+    private int mediaCacheSize = 1000;
+    private Duration mediaCacheTtl = Duration.ofDays(1);
+    private String mediaCacheFile;
+    private int chatMemberCacheSize = 10_000;
+    private String outboxFile;
+    private String scheduleFile;
+    private Duration chatMemberCacheTtl = Duration.ofMinutes(5);
 
     /**
-     * Default constructor. Initializes the internal list of groups as an empty ArrayList.
+     * Default constructor. Initializes the internal list of groups as an empty list.
      */
     public BotConfig() {
-        this.groups = new ArrayList<>();
+        this.groups = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -28,7 +57,7 @@ public class BotConfig {
     public BotConfig(String botToken, String botUsername) {
         this.botToken = botToken;
         this.botUsername = botUsername;
-        this.groups = new ArrayList<>();
+        this.groups = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -59,50 +88,426 @@ public class BotConfig {
      */
     public void setBotUsername(String botUsername) { this.botUsername = botUsername; }
 
+    /**
+     * Returns how the bot receives updates from Telegram.
+     *
+     * @return The {@link UpdateMode}; {@link UpdateMode#LONG_POLLING} by default.
+     */
+    public UpdateMode getUpdateMode() { return updateMode; }
+
+    /**
+     * Sets how the bot receives updates from Telegram.
+     *
+     * @param updateMode The new {@link UpdateMode}.
+     */
+    public void setUpdateMode(UpdateMode updateMode) { this.updateMode = updateMode; }
+
+    /**
+     * Returns the public HTTPS URL Telegram should deliver webhook updates to.
+     *
+     * @return The webhook URL, or {@code null} if the webhook is registered externally.
+     */
+    public String getWebhookUrl() { return webhookUrl; }
+
+    /**
+     * Sets the public HTTPS URL Telegram should deliver webhook updates to
+     * (e.g., "https://bot.example.com/webhook"). When {@code null}, the bot does not
+     * call {@code setWebhook} itself.
+     *
+     * @param webhookUrl The new webhook URL.
+     */
+    public void setWebhookUrl(String webhookUrl) { this.webhookUrl = webhookUrl; }
+
+    /**
+     * Returns the local port the embedded webhook server listens on.
+     *
+     * @return The webhook port; {@code 8443} by default.
+     */
+    public int getWebhookPort() { return webhookPort; }
+
+    /**
+     * Sets the local port the embedded webhook server listens on. Use {@code 0} to
+     * bind to any free port.
+     *
+     * @param webhookPort The new webhook port.
+     */
+    public void setWebhookPort(int webhookPort) { this.webhookPort = webhookPort; }
+
+    /**
+     * Returns the local path the embedded webhook server accepts updates on.
+     *
+     * @return The webhook path; {@code "/webhook"} by default.
+     */
+    public String getWebhookPath() { return webhookPath; }
+
+    /**
+     * Sets the local path the embedded webhook server accepts updates on.
+     *
+     * @param webhookPath The new webhook path.
+     */
+    public void setWebhookPath(String webhookPath) { this.webhookPath = webhookPath; }
+
+    /**
+     * Returns the secret token Telegram sends in the {@code X-Telegram-Bot-Api-Secret-Token} header.
+     *
+     * @return The secret token, or {@code null} if requests are not verified.
+     */
+    public String getWebhookSecretToken() { return webhookSecretToken; }
+
+    /**
+     * Sets the secret token Telegram sends with each webhook request. Requests without
+     * the matching header are rejected.
+     *
+     * @param webhookSecretToken The new secret token.
+     */
+    public void setWebhookSecretToken(String webhookSecretToken) { this.webhookSecretToken = webhookSecretToken; }
+
+    /**
+     * Returns the maximum number of received updates that may wait for processing.
+     *
+     * @return The dispatch queue capacity; {@code 10000} by default.
+     */
+    public int getDispatchQueueCapacity() { return dispatchQueueCapacity; }
+
+    /**
+     * Sets the maximum number of received updates that may wait for processing across all
+     * chats. Use {@code 0} to process updates directly on the receiving thread, one at a time.
+     *
+     * @param dispatchQueueCapacity The new dispatch queue capacity.
+     */
+    public void setDispatchQueueCapacity(int dispatchQueueCapacity) { this.dispatchQueueCapacity = dispatchQueueCapacity; }
+
+    /**
+     * Returns what happens to a received update when the dispatch queue is full.
+     *
+     * @return The {@link OverflowPolicy}; {@link OverflowPolicy#BLOCK} by default.
+     */
+    public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+
+    /**
+     * Sets what happens to a received update when the dispatch queue is full.
+     *
+     * @param overflowPolicy The new {@link OverflowPolicy}.
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) { this.overflowPolicy = overflowPolicy; }
+
+    /**
+     * Returns how many received updates share one debug log line.
+     *
+     * @return The update log sample rate; {@code 1} (every update) by default.
+     */
+    public int getUpdateLogSampleRate() { return updateLogSampleRate; }
+
+    /**
+     * Sets how many received updates share one debug log line. For example, {@code 100}
+     * logs one in every hundred updates, and {@code 0} turns per-update logging off.
+     * Member join and leave events are always logged at info level.
+     *
+     * @param updateLogSampleRate The new update log sample rate.
+     */
+    public void setUpdateLogSampleRate(int updateLogSampleRate) { this.updateLogSampleRate = updateLogSampleRate; }
+
+    /**
+     * Returns the maximum number of uploaded media file IDs remembered for reuse.
+     *
+     * @return The media cache size; {@code 1000} by default.
+     */
+    public int getMediaCacheSize() { return mediaCacheSize; }
+
+    /**
+     * Sets the maximum number of uploaded media file IDs remembered for reuse, so that the
+     * same photo or document sent to many groups is uploaded only once. Use {@code 0} to
+     * upload every time.
+     *
+     * @param mediaCacheSize The new media cache size.
+     */
+    public void setMediaCacheSize(int mediaCacheSize) { this.mediaCacheSize = mediaCacheSize; }
+
+    /**
+     * Returns how long a remembered media file ID is reused before the file is uploaded again.
+     *
+     * @return The media cache time to live; one day by default.
+     */
+    public Duration getMediaCacheTtl() { return mediaCacheTtl; }
+
+    /**
+     * Sets how long a remembered media file ID is reused before the file is uploaded again.
+     *
+     * @param mediaCacheTtl The new media cache time to live.
+     */
+    public void setMediaCacheTtl(Duration mediaCacheTtl) { this.mediaCacheTtl = mediaCacheTtl; }
+
+    /**
+     * Returns the file the media cache is persisted to.
+     *
+     * @return The persistence file path, or {@code null} if the cache is kept in memory only.
+     */
+    public String getMediaCacheFile() { return mediaCacheFile; }
+
+    /**
+     * Sets the file the media cache is persisted to, so that remembered file IDs survive a
+     * restart. Use {@code null} to keep the cache in memory only.
+     *
+     * @param mediaCacheFile The new persistence file path.
+     */
+    public void setMediaCacheFile(String mediaCacheFile) { this.mediaCacheFile = mediaCacheFile; }
+
+    /**
+     * Returns the maximum number of chat members cached by {@code getChatMember}.
+     *
+     * @return The chat member cache size; {@code 10000} by default.
+     */
+    public int getChatMemberCacheSize() { return chatMemberCacheSize; }
+
+    /**
+     * Sets the maximum number of chat members cached by {@code getChatMember}. Use {@code 0}
+     * to request every lookup from Telegram.
+     *
+     * @param chatMemberCacheSize The new chat member cache size.
+     */
+    public void setChatMemberCacheSize(int chatMemberCacheSize) { this.chatMemberCacheSize = chatMemberCacheSize; }
+
+    /**
+     * Returns how long a cached chat member is used before it is fetched again.
+     *
+     * @return The chat member cache time to live; five minutes by default.
+     */
+    public Duration getChatMemberCacheTtl() { return chatMemberCacheTtl; }
+
+    /**
+     * Sets how long a cached chat member is used before it is fetched again. Membership
+     * changes seen in updates invalidate entries earlier; the time to live bounds how stale
+     * changes Telegram does not report to the bot, such as promotions, can get.
+     *
+     * @param chatMemberCacheTtl The new chat member cache time to live.
+     */
+    public void setChatMemberCacheTtl(Duration chatMemberCacheTtl) { this.chatMemberCacheTtl = chatMemberCacheTtl; }
+
+    /**
+     * Returns the journal file of the durable outbound message queue.
+     *
+     * @return The journal file path, or {@code null} if outbound messages are not journaled.
+     */
+    public String getOutboxFile() { return outboxFile; }
+
+    /**
+     * Sets the journal file of the durable outbound message queue. When set, broadcasts and
+     * durable sends are recorded before they are sent, and messages not yet delivered when the
+     * process stopped are sent again on the next start. Use {@code null} to disable.
+     *
+     * @param outboxFile The new journal file path.
+     */
+    public void setOutboxFile(String outboxFile) { this.outboxFile = outboxFile; }
+
+    /**
+     * Returns the file scheduled messages are persisted to.
+     *
+     * @return The schedule file path, or {@code null} if scheduled messages are kept in memory only.
+     */
+    public String getScheduleFile() { return scheduleFile; }
+
+    /**
+     * Sets the file scheduled messages are persisted to, so that messages pending when the
+     * process stopped are still sent after the next start. Use {@code null} to keep them in
+     * memory only.
+     *
+     * @param scheduleFile The new schedule file path.
+     */
+    public void setScheduleFile(String scheduleFile) { this.scheduleFile = scheduleFile; }
+
     /**
      * Returns the list of configured groups managed by this bot.
+     * <p>
+     * The list is a live view: changes made through it, e.g. {@code getGroups().add(group)},
+     * are applied to the configuration and re-index the groups like {@link #addGroup(GroupConfig)}
+     * and {@link #removeGroup(GroupConfig)} do. Iterating it never fails while other threads
+     * change the groups, since iterators see the groups as they were when iteration started.
      *
      * @return A {@code List<GroupConfig>} containing details for each managed group.
      */
-    public List<GroupConfig> getGroups() { return groups; }
+    public List<GroupConfig> getGroups() { return groupsView; }
 
     /**
-     * Sets the entire list of configured groups.
+     * Sets the entire list of configured groups. The groups are copied into a thread-safe
+     * list and re-indexed, so this method can be used to hot-reload the configuration
+     * while other threads are sending.
      *
      * @param groups The new list of {@link GroupConfig} objects.
      */
-    public void setGroups(List<GroupConfig> groups) { this.groups = groups; }
+    public synchronized void setGroups(List<GroupConfig> groups) {
+        List<GroupConfig> copy = groups == null ? new CopyOnWriteArrayList<>() : new CopyOnWriteArrayList<>(groups);
+        this.groupIndex = new GroupIndex(copy);
+        this.groups = copy;
+    }
 
     /**
      * Adds a single group configuration to the list of managed groups.
+     * <p>
+     * Each call copies the list and rebuilds the index, so use {@link #addGroups(Collection)}
+     * or {@link #setGroups(List)} to load many groups at once.
      *
      * @param group The {@link GroupConfig} object to add.
      */
-    public void addGroup(GroupConfig group) { this.groups.add(group); }
+    public synchronized void addGroup(GroupConfig group) {
+        this.groups.add(group);
+        this.groupIndex = new GroupIndex(groups);
+    }
+
+    /**
+     * Adds several group configurations to the list of managed groups, copying the list and
+     * rebuilding the index only once.
+     *
+     * @param groups The {@link GroupConfig} objects to add.
+     * @return {@code true} if any group was added.
+     */
+    public synchronized boolean addGroups(Collection<? extends GroupConfig> groups) {
+        boolean added = this.groups.addAll(groups);
+        if (added) {
+            this.groupIndex = new GroupIndex(this.groups);
+        }
+        return added;
+    }
+
+    /**
+     * Removes a group configuration from the list of managed groups.
+     *
+     * @param group The {@link GroupConfig} object to remove.
+     * @return {@code true} if the group was configured.
+     */
+    public synchronized boolean removeGroup(GroupConfig group) {
+        boolean removed = this.groups.remove(group);
+        if (removed) {
+            this.groupIndex = new GroupIndex(groups);
+        }
+        return removed;
+    }
+
+    /**
+     * Rebuilds the lookup index from the current list of groups.
+     * <p>
+     * Call this after changing the chat ID or name of a group that is already configured.
+     */
+    public synchronized void reindexGroups() {
+        this.groupIndex = new GroupIndex(groups);
+    }
 
     /**
-     * Finds a configured group by its custom name using a stream and filter.
+     * Finds a configured group by its custom name using the name index.
      *
      * @param name The name of the group to search for.
      * @return The matching {@link GroupConfig} object, or {@code null} if not found.
      */
     public GroupConfig getGroupByName(String name) {
-        return groups.stream()
-                .filter(g -> g.getName().equals(name))
-                .findFirst()
-                .orElse(null);
+        return name == null ? null : groupIndex.byName(name);
     }
 
     /**
-     * Finds a configured group by its Telegram chat ID using a stream and filter.
+     * Finds a configured group by its Telegram chat ID using the ID index.
      *
      * @param id The chat ID (Long) of the group to search for.
      * @return The matching {@link GroupConfig} object, or {@code null} if not found.
      */
     public GroupConfig getGroupById(Long id) {
-        return groups.stream()
-                .filter(g -> g.getChatId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return id == null ? null : groupIndex.byId(id);
+    }
+
+    /**
+     * The list returned by {@link #getGroups()}. Reads go to the current group list; every
+     * change is made under the configuration's lock and followed by a new index.
+     */
+    private final class GroupListView extends AbstractList<GroupConfig> {
+
+        @Override
+        public GroupConfig get(int index) {
+            return groups.get(index);
+        }
+
+        @Override
+        public int size() {
+            return groups.size();
+        }
+
+        @Override
+        public Iterator<GroupConfig> iterator() {
+            return groups.iterator();
+        }
+
+        @Override
+        public Object[] toArray() {
+            return groups.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            return groups.toArray(a);
+        }
+
+        @Override
+        public boolean add(GroupConfig group) {
+            addGroup(group);
+            return true;
+        }
+
+        @Override
+        public void add(int index, GroupConfig group) {
+            synchronized (BotConfig.this) {
+                groups.add(index, group);
+                reindexGroups();
+            }
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends GroupConfig> c) {
+            return addGroups(c);
+        }
+
+        @Override
+        public GroupConfig set(int index, GroupConfig group) {
+            synchronized (BotConfig.this) {
+                GroupConfig previous = groups.set(index, group);
+                reindexGroups();
+                return previous;
+            }
+        }
+
+        @Override
+        public GroupConfig remove(int index) {
+            synchronized (BotConfig.this) {
+                GroupConfig removed = groups.remove(index);
+                reindexGroups();
+                return removed;
+            }
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof GroupConfig group && removeGroup(group);
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super GroupConfig> filter) {
+            synchronized (BotConfig.this) {
+                boolean removed = groups.removeIf(filter);
+                if (removed) {
+                    reindexGroups();
+                }
+                return removed;
+            }
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            return removeIf(c::contains);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            return removeIf(group -> !c.contains(group));
+        }
+
+        @Override
+        public void clear() {
+            setGroups(null);
+        }
     }
 }
\ No newline at end of file
@@ -1,5 +1,9 @@
 package travel.letstrip.config;
 
+import travel.letstrip.utils.DateTimeUtil;
+
+import java.time.ZoneId;
+
 /**
  * Configuration class that holds specific details for a single Telegram group,
  * allowing the bot to send messages, photos, or documents to the correct destination
@@ -9,6 +13,8 @@ public class GroupConfig {
     private Long chatId;
     private Integer topicId;
     private String name;
+    private String timeZone;
+    private long coalesceWindowMillis;
 
     /**
      * Default constructor for creating an empty GroupConfig object.
@@ -77,4 +83,43 @@ public class GroupConfig {
      * @return {@code true} if {@code topicId} is present and greater than zero, {@code false} otherwise.
      */
     public boolean hasTopic() { return topicId != null && topicId > 0; }
+
+    /**
+     * Returns the IANA time zone ID of the group (e.g., "Europe/Berlin").
+     *
+     * @return The time zone ID, or {@code null} if the group uses {@link DateTimeUtil#DEFAULT_ZONE}.
+     */
+    public String getTimeZone() { return timeZone; }
+
+    /**
+     * Sets the IANA time zone ID used for times scheduled in this group.
+     *
+     * @param timeZone The time zone ID, or {@code null} to use {@link DateTimeUtil#DEFAULT_ZONE}.
+     */
+    public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
+
+    /**
+     * Returns how long asynchronous text messages to this group are collected before they are
+     * sent together as one message.
+     *
+     * @return The coalescing window in milliseconds, or {@code 0} if every message is sent on its own.
+     */
+    public long getCoalesceWindowMillis() { return coalesceWindowMillis; }
+
+    /**
+     * Sets how long asynchronous text messages to this group are collected before they are
+     * sent together as one message. Merging bursts of short notifications saves requests
+     * against the per-chat rate limit, at the cost of delaying each message by up to the window.
+     *
+     * @param coalesceWindowMillis The coalescing window in milliseconds, or {@code 0} to disable.
+     */
+    public void setCoalesceWindowMillis(long coalesceWindowMillis) { this.coalesceWindowMillis = coalesceWindowMillis; }
+
+    /**
+     * Resolves the time zone in which local times for this group are interpreted.
+     *
+     * @return The configured zone, or {@link DateTimeUtil#DEFAULT_ZONE} if none is set.
+     * @throws java.time.DateTimeException If the configured time zone ID is invalid.
+     */
+    public ZoneId zone() { return timeZone != null ? ZoneId.of(timeZone) : DateTimeUtil.DEFAULT_ZONE; }
 }
\ No newline at end of file
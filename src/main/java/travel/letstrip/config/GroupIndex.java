@@ -0,0 +1,80 @@
+package travel.letstrip.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup index over a list of {@link GroupConfig} objects.
+ * <p>
+ * Chat IDs are stored in an open-addressing table keyed by primitive {@code long}, so a
+ * lookup by ID neither boxes nor walks the group list. Names are indexed in a regular hash
+ * map. When several groups share an ID or a name, the first one in list order wins, which
+ * matches the behaviour of a sequential scan.
+ * <p>
+ * Instances are never modified after construction and can therefore be read by any number
+ * of threads while {@link BotConfig} swaps in a freshly built index.
+ */
+final class GroupIndex {
+
+    static final GroupIndex EMPTY = new GroupIndex(List.of());
+
+    private final long[] ids;
+    private final GroupConfig[] groupsById;
+    private final int mask;
+    private final Map<String, GroupConfig> groupsByName;
+
+    GroupIndex(List<GroupConfig> groups) {
+        int capacity = Integer.highestOneBit(Math.max(2, groups.size()) * 2 - 1) << 1;
+        this.ids = new long[capacity];
+        this.groupsById = new GroupConfig[capacity];
+        this.mask = capacity - 1;
+        this.groupsByName = new HashMap<>(Math.max(16, groups.size() * 2));
+
+        for (GroupConfig group : groups) {
+            if (group == null) {
+                continue;
+            }
+            if (group.getChatId() != null) {
+                putIfAbsent(group.getChatId(), group);
+            }
+            if (group.getName() != null) {
+                groupsByName.putIfAbsent(group.getName(), group);
+            }
+        }
+    }
+
+    GroupConfig byId(long id) {
+        for (int slot = slot(id); groupsById[slot] != null; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return groupsById[slot];
+            }
+        }
+        return null;
+    }
+
+    GroupConfig byName(String name) {
+        return groupsByName.get(name);
+    }
+
+    private void putIfAbsent(long id, GroupConfig group) {
+        int slot = slot(id);
+        while (groupsById[slot] != null) {
+            if (ids[slot] == id) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+        groupsById[slot] = group;
+    }
+
+    private int slot(long id) {
+        // Finalizer of MurmurHash3: spreads sequential and negative chat IDs evenly.
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
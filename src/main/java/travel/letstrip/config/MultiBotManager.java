@@ -0,0 +1,227 @@
+package travel.letstrip.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+import travel.letstrip.metrics.MetricsRegistry;
+import travel.letstrip.metrics.NoopMetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many bots, each with its own {@link BotConfig} and token, in one process.
+ * <p>
+ * Every bot is driven by its own {@link TelegramBotManager}, so it keeps its own router,
+ * rate limits, retry cooldowns and caches, and can be started, stopped, added or removed
+ * while the others keep running. The bots share:
+ * <ul>
+ *     <li>one virtual-thread executor for update dispatch and asynchronous sends;</li>
+ *     <li>one {@link MetricsRegistry}, in which every series is tagged with the bot's username;</li>
+ *     <li>one {@link TelegramBotsApi} for long polling registrations.</li>
+ * </ul>
+ * HTTP connections are not shared: the Telegram client library builds a private HTTP client
+ * for every bot.
+ * <pre>{@code
+ * MultiBotManager bots = new MultiBotManager(registry);
+ * for (BotConfig config : configs) {
+ *     bots.addBot(config).getRouter().onCommand("start", handler);
+ * }
+ * bots.startAll();
+ * }</pre>
+ */
+@Slf4j
+public class MultiBotManager implements AutoCloseable {
+    private final Map<String, TelegramBotManager> bots = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MetricsRegistry metricsRegistry;
+    private TelegramBotsApi botsApi;
+
+    /**
+     * Constructs a MultiBotManager that does not record metrics.
+     */
+    public MultiBotManager() {
+        this(NoopMetricsRegistry.INSTANCE);
+    }
+
+    /**
+     * Constructs a MultiBotManager whose bots report to a shared metrics registry.
+     *
+     * @param metricsRegistry The {@link MetricsRegistry} shared by all bots.
+     */
+    public MultiBotManager(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * Adds a bot without starting it, so handlers can be registered on its router first.
+     *
+     * @param config The configuration of the bot; its username identifies the bot in this manager.
+     * @return The {@link TelegramBotManager} of the new bot.
+     * @throws IllegalArgumentException If a bot with the same username was already added.
+     * @throws TelegramApiException If the shared long polling API cannot be created.
+     */
+    public TelegramBotManager addBot(BotConfig config) throws TelegramApiException {
+        TelegramBotManager manager = new TelegramBotManager(config, executor, botsApi());
+        manager.setMetricsRegistry(metricsRegistry);
+        if (bots.putIfAbsent(config.getBotUsername(), manager) != null) {
+            throw new IllegalArgumentException("Bot already added: " + config.getBotUsername());
+        }
+        return manager;
+    }
+
+    /**
+     * Starts a bot that was added but is not running.
+     *
+     * @param botUsername The username of the bot.
+     * @throws IllegalArgumentException If no bot with this username was added.
+     * @throws TelegramApiException If the bot cannot be started.
+     */
+    public void start(String botUsername) throws TelegramApiException {
+        TelegramBotManager manager = getRequiredBot(botUsername);
+        synchronized (manager) {
+            if (!manager.isRunning()) {
+                manager.start();
+            }
+        }
+    }
+
+    /**
+     * Stops a bot. It stays added and can be started again.
+     *
+     * @param botUsername The username of the bot.
+     * @throws IllegalArgumentException If no bot with this username was added.
+     */
+    public void stop(String botUsername) {
+        TelegramBotManager manager = getRequiredBot(botUsername);
+        synchronized (manager) {
+            manager.stop();
+        }
+    }
+
+    /**
+     * Stops a bot and removes it from this manager. Its gauges and counters are removed
+     * from the shared {@link MetricsRegistry} when it stops.
+     *
+     * @param botUsername The username of the bot.
+     * @return The removed {@link TelegramBotManager}, or {@code null} if no such bot was added.
+     */
+    public TelegramBotManager removeBot(String botUsername) {
+        TelegramBotManager manager = bots.remove(botUsername);
+        if (manager != null) {
+            synchronized (manager) {
+                manager.stop();
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * Starts all added bots that are not running, concurrently. A bot that fails to start
+     * does not keep the others from starting.
+     *
+     * @return The errors of the bots that failed to start, by username; empty if all started.
+     */
+    public Map<String, Exception> startAll() {
+        List<String> names = new ArrayList<>(bots.keySet());
+        List<Callable<Void>> tasks = new ArrayList<>(names.size());
+        for (String name : names) {
+            tasks.add(() -> {
+                start(name);
+                return null;
+            });
+        }
+
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        try {
+            List<Future<Void>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                    log.error("Failed to start bot {}: {}", names.get(i), cause.getMessage());
+                    failures.put(names.get(i), cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while starting {} bots", names.size());
+        }
+        return failures;
+    }
+
+    /**
+     * Stops all bots. They stay added and can be started again.
+     */
+    public void stopAll() {
+        for (TelegramBotManager manager : bots.values()) {
+            synchronized (manager) {
+                manager.stop();
+            }
+        }
+    }
+
+    /**
+     * Stops all bots and shuts down the shared executor. The manager cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        stopAll();
+        executor.shutdown();
+    }
+
+    /**
+     * Returns a bot by its username.
+     *
+     * @param botUsername The username of the bot.
+     * @return The {@link TelegramBotManager}, or {@code null} if no such bot was added.
+     */
+    public TelegramBotManager getBot(String botUsername) {
+        return bots.get(botUsername);
+    }
+
+    /**
+     * Returns all added bots, running or not.
+     *
+     * @return An unmodifiable view of the bots.
+     */
+    public Collection<TelegramBotManager> getBots() {
+        return Collections.unmodifiableCollection(bots.values());
+    }
+
+    /**
+     * Returns the registry shared by all bots.
+     *
+     * @return The {@link MetricsRegistry}.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    private TelegramBotManager getRequiredBot(String botUsername) {
+        TelegramBotManager manager = bots.get(botUsername);
+        if (manager == null) {
+            throw new IllegalArgumentException("Bot not found : " + botUsername);
+        }
+        return manager;
+    }
+
+    private synchronized TelegramBotsApi botsApi() throws TelegramApiException {
+        if (botsApi == null) {
+            botsApi = new TelegramBotsApi(DefaultBotSession.class);
+        }
+        return botsApi;
+    }
+}
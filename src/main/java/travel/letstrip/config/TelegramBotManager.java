@@ -1,21 +1,42 @@
 package travel.letstrip.config;
 
-
+import lombok.extern.slf4j.Slf4j;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+import travel.letstrip.enums.UpdateMode;
+import travel.letstrip.metrics.MetricsRegistry;
+import travel.letstrip.metrics.NoopMetricsRegistry;
+import travel.letstrip.service.CallbackStateStore;
+import travel.letstrip.service.InMemoryCallbackStateStore;
 import travel.letstrip.service.TelegramBotService;
+import travel.letstrip.service.UpdateRouter;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Manages the lifecycle of the Telegram Bot.
  * <p>
  * This class is responsible for initializing the {@link TelegramBotsApi},
  * creating the {@link TelegramBotService}, and registering the bot to start
- * receiving updates from Telegram.
+ * receiving updates from Telegram, either by long polling or through an
+ * embedded {@link WebhookReceiver}, depending on {@link BotConfig#getUpdateMode()}.
  */
+@Slf4j
 public class TelegramBotManager {
     private TelegramBotService botService;
     private BotConfig config;
+    private final UpdateRouter router = new UpdateRouter();
+    private MetricsRegistry metricsRegistry = NoopMetricsRegistry.INSTANCE;
+    private CallbackStateStore callbackStateStore = new InMemoryCallbackStateStore();
+    private BotSession botSession;
+    private WebhookReceiver webhookReceiver;
+    private volatile boolean running;
+    private final ExecutorService sharedExecutor;
+    private final TelegramBotsApi sharedBotsApi;
 
     /**
      * Constructs a new TelegramBotManager.
@@ -24,28 +45,161 @@ public class TelegramBotManager {
      * (like token and username) and group details.
      */
     public TelegramBotManager(BotConfig config) {
+        this(config, null, null);
+    }
+
+    /**
+     * Constructs a TelegramBotManager whose bot uses resources shared with other bots of a
+     * {@link MultiBotManager}.
+     *
+     * @param config The bot configuration.
+     * @param sharedExecutor The executor shared by the bots, or {@code null} for one owned by the bot.
+     * @param sharedBotsApi The API long polling bots are registered with, or {@code null} to create one per start.
+     */
+    TelegramBotManager(BotConfig config, ExecutorService sharedExecutor, TelegramBotsApi sharedBotsApi) {
         this.config = config;
+        this.sharedExecutor = sharedExecutor;
+        this.sharedBotsApi = sharedBotsApi;
     }
 
     /**
      * Initializes and starts the Telegram bot.
      * <p>
-     * It registers the {@link TelegramBotService} instance with the
-     * {@link TelegramBotsApi} to establish a long polling connection
-     * and begin handling updates.
+     * In {@link UpdateMode#LONG_POLLING} mode it registers the {@link TelegramBotService}
+     * instance with the {@link TelegramBotsApi} to establish a long polling connection.
+     * In {@link UpdateMode#WEBHOOK} mode it starts a {@link WebhookReceiver} that passes
+     * posted updates to the same service and, if a webhook URL is configured, registers
+     * that URL with Telegram.
      *
      * @throws TelegramApiException If an error occurs during the bot registration or API setup.
      */
     public void start() throws TelegramApiException {
-        // Initializes the TelegramBotsApi using the default session for long polling.
-        TelegramBotsApi botsApi = new TelegramBotsApi(DefaultBotSession.class);
-
         // Creates the main bot service implementation.
-        botService = new TelegramBotService(config);
+        botService = new TelegramBotService(config, router, metricsRegistry, callbackStateStore, sharedExecutor);
+
+        try {
+            if (config.getUpdateMode() == UpdateMode.WEBHOOK) {
+                startWebhook();
+            } else {
+                // Initializes the TelegramBotsApi using the default session for long polling.
+                TelegramBotsApi botsApi = sharedBotsApi != null ? sharedBotsApi : new TelegramBotsApi(DefaultBotSession.class);
+
+                // Registers the bot to start receiving updates.
+                botSession = botsApi.registerBot(botService);
+            }
+        } catch (TelegramApiException | RuntimeException e) {
+            // Releases the scheduler, journal and executor of the service that never started.
+            stop();
+            throw e;
+        }
+        botService.replayOutbox();
+        botService.startMessageScheduler();
+        running = true;
+        log.info("Bot is running : {} ({})", config.getBotUsername(), config.getUpdateMode());
+    }
+
+    private void startWebhook() throws TelegramApiException {
+        webhookReceiver = new WebhookReceiver(config, botService::dispatchUpdate);
+        try {
+            webhookReceiver.start();
+        } catch (IOException e) {
+            throw new TelegramApiException("Unable to start webhook receiver on port " + config.getWebhookPort(), e);
+        }
+
+        if (config.getWebhookUrl() != null) {
+            SetWebhook setWebhook = new SetWebhook();
+            setWebhook.setUrl(config.getWebhookUrl());
+            setWebhook.setSecretToken(config.getWebhookSecretToken());
+            botService.execute(setWebhook);
+        }
+    }
 
-        // Registers the bot to start receiving updates.
-        botsApi.registerBot(botService);
-        System.out.println("Bot is running : " + config.getBotUsername());
+    /**
+     * Stops receiving updates and releases the resources held by the bot service.
+     * The manager can be started again afterwards.
+     */
+    public void stop() {
+        running = false;
+        if (botSession != null && botSession.isRunning()) {
+            botSession.stop();
+        }
+        botSession = null;
+        if (webhookReceiver != null) {
+            webhookReceiver.stop();
+            webhookReceiver = null;
+        }
+        if (botService != null) {
+            // Already done by a stopped long polling session; the service ignores repeated calls.
+            botService.onClosing();
+        }
+    }
+
+    /**
+     * Indicates whether the bot has been started and not stopped since.
+     *
+     * @return {@code true} if the bot is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Retrieves the running webhook receiver, for example to find the port it is bound to.
+     *
+     * @return The {@link WebhookReceiver}, or {@code null} when the bot is not running in webhook mode.
+     */
+    public WebhookReceiver getWebhookReceiver() {
+        return webhookReceiver;
+    }
+
+    /**
+     * Retrieves the router that passes received updates to application handlers. Handlers
+     * can be registered before {@link #start()} is called, so no update is missed.
+     *
+     * @return The {@link UpdateRouter} shared by every start of this manager.
+     */
+    public UpdateRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Retrieves the registry that receives the bot's request and update metrics.
+     *
+     * @return The {@link MetricsRegistry}; a no-op registry unless one was set.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    /**
+     * Sets the registry that receives the bot's request and update metrics, for example a
+     * {@link travel.letstrip.metrics.SimpleMetricsRegistry} exported with
+     * {@link travel.letstrip.metrics.PrometheusExporter}. Takes effect on the next {@link #start()}.
+     *
+     * @param metricsRegistry The {@link MetricsRegistry} to use.
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * Retrieves the store for callback payloads too large for {@code callback_data}.
+     *
+     * @return The {@link CallbackStateStore}; an {@link InMemoryCallbackStateStore} unless one was set.
+     */
+    public CallbackStateStore getCallbackStateStore() {
+        return callbackStateStore;
+    }
+
+    /**
+     * Sets the store for callback payloads too large for {@code callback_data}, for example
+     * one backed by a file or an external cache so that keyboards survive a restart. Takes
+     * effect on the next {@link #start()}.
+     *
+     * @param callbackStateStore The {@link CallbackStateStore} to use.
+     */
+    public void setCallbackStateStore(CallbackStateStore callbackStateStore) {
+        this.callbackStateStore = callbackStateStore;
     }
 
     /**
@@ -0,0 +1,150 @@
+package travel.letstrip.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Lightweight webhook endpoint built on the JDK's embedded {@link HttpServer}.
+ * <p>
+ * Telegram (or any local HTTP client) posts update JSON to the configured path. Each request
+ * is handled on its own virtual thread: the body is parsed with Jackson and handed to the
+ * same update handler used in long polling mode, which only queues it for processing, and
+ * the request is then answered with {@code 200 OK}. If the handler rejects the update because
+ * its queue is full, the request is answered with {@code 503} so that Telegram redelivers it later.
+ * Bodies larger than 1 MB are refused with {@code 413} without being parsed.
+ */
+@Slf4j
+public class WebhookReceiver {
+    private static final String SECRET_TOKEN_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    /** Largest request body accepted; Telegram updates are far smaller. */
+    private static final int MAX_BODY_SIZE = 1 << 20;
+
+    private final BotConfig config;
+    private final Consumer<Update> updateHandler;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a new WebhookReceiver.
+     *
+     * @param config The bot configuration providing the webhook port, path, and secret token.
+     * @param updateHandler The handler every received {@link Update} is passed to.
+     */
+    public WebhookReceiver(BotConfig config, Consumer<Update> updateHandler) {
+        this.config = config;
+        this.updateHandler = updateHandler;
+    }
+
+    /**
+     * Binds the HTTP server to the configured port and starts accepting updates.
+     *
+     * @throws IOException If the server cannot be bound.
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(config.getWebhookPort()), 0);
+        server.createContext(config.getWebhookPath(), this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Webhook receiver listening on port {} at {}", getPort(), config.getWebhookPath());
+    }
+
+    /**
+     * Stops the HTTP server. Requests that are already being handled are allowed to finish.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Returns the port the server is bound to, which differs from the configured port
+     * when the configuration asks for any free port ({@code 0}).
+     *
+     * @return The local port, or {@code -1} if the receiver is not running.
+     */
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!isAuthorized(exchange.getRequestHeaders().getFirst(SECRET_TOKEN_HEADER))) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY_SIZE + 1);
+            }
+            if (body.length > MAX_BODY_SIZE) {
+                log.warn("Rejected webhook request with a body over {} bytes", MAX_BODY_SIZE);
+                exchange.sendResponseHeaders(413, -1);
+                return;
+            }
+
+            Update update;
+            try {
+                update = objectMapper.readValue(body, Update.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Rejected malformed webhook update: {}", e.getOriginalMessage());
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            try {
+                updateHandler.accept(update);
+            } catch (RejectedExecutionException e) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to handle webhook update {}: {}", update.getUpdateId(), e.getMessage(), e);
+            }
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    /**
+     * Compares the secret token header in constant time, so that response timing does not
+     * reveal how much of a guessed token was correct.
+     */
+    private boolean isAuthorized(String headerValue) {
+        String secretToken = config.getWebhookSecretToken();
+        if (secretToken == null) {
+            return true;
+        }
+        return headerValue != null && MessageDigest.isEqual(
+                secretToken.getBytes(StandardCharsets.UTF_8), headerValue.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,11 @@
+package travel.letstrip.enums;
+
+/**
+ * A moderation action applied to a user in a chat by a bulk moderation run.
+ */
+public enum ModerationAction {
+    /** Remove the user from the chat; they may rejoin. */
+    KICK,
+    /** Remove the user from the chat and ban them permanently. */
+    BAN
+}
@@ -0,0 +1,15 @@
+package travel.letstrip.enums;
+
+/**
+ * Outcome of one user/chat pair in a bulk moderation run.
+ */
+public enum ModerationStatus {
+    /** The action was applied. */
+    SUCCEEDED,
+    /** The Telegram API rejected the action or it could not be sent. */
+    FAILED,
+    /** The action had already been applied according to the ledger and was not repeated. */
+    SKIPPED,
+    /** The run was a dry run; the action would have been applied. */
+    DRY_RUN
+}
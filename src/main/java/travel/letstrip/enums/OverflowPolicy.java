@@ -0,0 +1,13 @@
+package travel.letstrip.enums;
+
+/**
+ * What to do with an incoming update when the dispatch queue is full.
+ */
+public enum OverflowPolicy {
+    /** Wait until a queued update has been processed, slowing down the receiver. */
+    BLOCK,
+    /** Discard the incoming update and count it as dropped. */
+    DROP_NEWEST,
+    /** Reject the incoming update with a {@link java.util.concurrent.RejectedExecutionException}. */
+    REJECT
+}
@@ -0,0 +1,11 @@
+package travel.letstrip.enums;
+
+/**
+ * Which of Telegram's outbound rate limits an API request counts against.
+ */
+public enum RateLimitScope {
+    /** Requests that post to a chat: subject to the per-chat and the global limit. */
+    CHAT,
+    /** Requests about a chat that do not post to it, such as moderation actions: subject to the global limit only. */
+    GLOBAL
+}
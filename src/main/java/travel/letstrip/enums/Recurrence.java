@@ -0,0 +1,15 @@
+package travel.letstrip.enums;
+
+/**
+ * How often a scheduled message is sent.
+ */
+public enum Recurrence {
+    /** Sent once, at the scheduled time. */
+    ONCE,
+    /** Sent repeatedly, a fixed period apart. */
+    FIXED_RATE,
+    /** Sent every day at the same local time. */
+    DAILY,
+    /** Sent every week on the same day, at the same local time. */
+    WEEKLY
+}
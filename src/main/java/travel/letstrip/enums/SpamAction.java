@@ -0,0 +1,16 @@
+package travel.letstrip.enums;
+
+/**
+ * What the spam guard does to a user whose messages trip a flood or duplicate limit. Every
+ * action also deletes the offending message.
+ */
+public enum SpamAction {
+    /** Only delete the offending message. */
+    DELETE,
+    /** Delete the message and mute the user for the configured duration. */
+    MUTE,
+    /** Delete the message and remove the user from the chat; they may rejoin. */
+    KICK,
+    /** Delete the message and ban the user permanently. */
+    BAN
+}
@@ -0,0 +1,11 @@
+package travel.letstrip.enums;
+
+/**
+ * How the bot receives updates from Telegram.
+ */
+public enum UpdateMode {
+    /** The bot polls Telegram with {@code getUpdates} requests. */
+    LONG_POLLING,
+    /** Telegram pushes updates to an embedded HTTP endpoint. */
+    WEBHOOK
+}
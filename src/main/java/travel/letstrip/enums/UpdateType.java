@@ -0,0 +1,63 @@
+package travel.letstrip.enums;
+
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * The kind of an incoming {@link Update}, used to route it to registered handlers.
+ * <p>
+ * Service messages about members joining or leaving a chat are reported as
+ * {@link #NEW_CHAT_MEMBERS} and {@link #LEFT_CHAT_MEMBER} rather than {@link #MESSAGE}.
+ */
+public enum UpdateType {
+    MESSAGE,
+    NEW_CHAT_MEMBERS,
+    LEFT_CHAT_MEMBER,
+    EDITED_MESSAGE,
+    CHANNEL_POST,
+    EDITED_CHANNEL_POST,
+    CALLBACK_QUERY,
+    INLINE_QUERY,
+    CHOSEN_INLINE_QUERY,
+    SHIPPING_QUERY,
+    PRE_CHECKOUT_QUERY,
+    POLL,
+    POLL_ANSWER,
+    MY_CHAT_MEMBER,
+    CHAT_MEMBER,
+    CHAT_JOIN_REQUEST,
+    UNKNOWN;
+
+    /**
+     * Determines the type of an update.
+     *
+     * @param update The incoming update.
+     * @return The matching {@link UpdateType}, or {@link #UNKNOWN} if none applies.
+     */
+    public static UpdateType of(Update update) {
+        if (update.hasMessage()) {
+            Message message = update.getMessage();
+            if (message.getNewChatMembers() != null && !message.getNewChatMembers().isEmpty()) {
+                return NEW_CHAT_MEMBERS;
+            }
+            if (message.getLeftChatMember() != null) {
+                return LEFT_CHAT_MEMBER;
+            }
+            return MESSAGE;
+        }
+        if (update.hasEditedMessage()) return EDITED_MESSAGE;
+        if (update.hasChannelPost()) return CHANNEL_POST;
+        if (update.hasEditedChannelPost()) return EDITED_CHANNEL_POST;
+        if (update.hasCallbackQuery()) return CALLBACK_QUERY;
+        if (update.hasInlineQuery()) return INLINE_QUERY;
+        if (update.hasChosenInlineQuery()) return CHOSEN_INLINE_QUERY;
+        if (update.hasShippingQuery()) return SHIPPING_QUERY;
+        if (update.hasPreCheckoutQuery()) return PRE_CHECKOUT_QUERY;
+        if (update.hasPoll()) return POLL;
+        if (update.hasPollAnswer()) return POLL_ANSWER;
+        if (update.hasMyChatMember()) return MY_CHAT_MEMBER;
+        if (update.hasChatMember()) return CHAT_MEMBER;
+        if (update.hasChatJoinRequest()) return CHAT_JOIN_REQUEST;
+        return UNKNOWN;
+    }
+}
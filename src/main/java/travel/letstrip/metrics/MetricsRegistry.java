@@ -0,0 +1,62 @@
+package travel.letstrip.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Minimal metrics surface used by the library to report counters, latencies, and gauges.
+ * <p>
+ * Tags are passed as alternating key/value pairs, e.g.
+ * {@code incrementCounter("telegram_requests_total", "method", "sendMessage", "outcome", "success")}.
+ * Implementations can bridge to any metrics system; {@link NoopMetricsRegistry} is used
+ * when none is configured and {@link SimpleMetricsRegistry} keeps the values in memory for
+ * export with {@link PrometheusExporter}.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param name The metric name.
+     * @param tags Alternating tag keys and values.
+     */
+    void incrementCounter(String name, String... tags);
+
+    /**
+     * Records the duration of an operation in a latency histogram.
+     *
+     * @param name The metric name.
+     * @param durationNanos The duration in nanoseconds.
+     * @param tags Alternating tag keys and values.
+     */
+    void recordTime(String name, long durationNanos, String... tags);
+
+    /**
+     * Registers a gauge whose value is read from the supplier whenever metrics are exported.
+     * Registering a gauge again under the same name and tags replaces the supplier.
+     *
+     * @param name The metric name.
+     * @param value The supplier of the current value.
+     * @param tags Alternating tag keys and values.
+     */
+    void registerGauge(String name, DoubleSupplier value, String... tags);
+
+    /**
+     * Registers a counter whose value is read from the supplier whenever metrics are exported.
+     * Unlike a gauge, the value must never decrease, e.g. a count kept by the component
+     * itself. Registering a counter again under the same name and tags replaces the supplier.
+     *
+     * @param name The metric name.
+     * @param value The supplier of the current total.
+     * @param tags Alternating tag keys and values.
+     */
+    void registerCounter(String name, DoubleSupplier value, String... tags);
+
+    /**
+     * Removes a gauge or a counter registered with a supplier, e.g. when the component that
+     * supplies its value is closed. Does nothing if no such metric is registered.
+     *
+     * @param name The metric name.
+     * @param tags Alternating tag keys and values, as given when registering.
+     */
+    void unregister(String name, String... tags);
+}
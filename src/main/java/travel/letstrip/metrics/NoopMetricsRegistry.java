@@ -0,0 +1,36 @@
+package travel.letstrip.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A {@link MetricsRegistry} that discards everything. Used by default so that
+ * instrumentation costs nothing when metrics are not wanted.
+ */
+public final class NoopMetricsRegistry implements MetricsRegistry {
+
+    /** The shared instance. */
+    public static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    private NoopMetricsRegistry() {
+    }
+
+    @Override
+    public void incrementCounter(String name, String... tags) {
+    }
+
+    @Override
+    public void recordTime(String name, long durationNanos, String... tags) {
+    }
+
+    @Override
+    public void registerGauge(String name, DoubleSupplier value, String... tags) {
+    }
+
+    @Override
+    public void registerCounter(String name, DoubleSupplier value, String... tags) {
+    }
+
+    @Override
+    public void unregister(String name, String... tags) {
+    }
+}
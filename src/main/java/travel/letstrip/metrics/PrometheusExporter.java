@@ -0,0 +1,133 @@
+package travel.letstrip.metrics;
+
+import travel.letstrip.metrics.SimpleMetricsRegistry.Histogram;
+import travel.letstrip.metrics.SimpleMetricsRegistry.MetricKey;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Renders the contents of a {@link SimpleMetricsRegistry} in the Prometheus text
+ * exposition format (version 0.0.4), ready to be served from a {@code /metrics} endpoint.
+ */
+public class PrometheusExporter {
+
+    /** The content type to use when serving the exported text over HTTP. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final SimpleMetricsRegistry registry;
+
+    /**
+     * Constructs a new PrometheusExporter.
+     *
+     * @param registry The registry whose metrics are exported.
+     */
+    public PrometheusExporter(SimpleMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Renders every counter, histogram, and gauge of the registry.
+     *
+     * @return The metrics in Prometheus text format.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        Set<String> typed = new HashSet<>();
+
+        for (Map.Entry<MetricKey, LongAdder> entry : sorted(registry.counters()).entrySet()) {
+            writeType(out, typed, entry.getKey().name(), "counter");
+            writeSample(out, entry.getKey().name(), entry.getKey().tags(), null, entry.getValue().sum());
+        }
+
+        for (Map.Entry<MetricKey, DoubleSupplier> entry : sorted(registry.functionCounters()).entrySet()) {
+            writeType(out, typed, entry.getKey().name(), "counter");
+            writeSample(out, entry.getKey().name(), entry.getKey().tags(), null, entry.getValue().getAsDouble());
+        }
+
+        for (Map.Entry<MetricKey, Histogram> entry : sorted(registry.histograms()).entrySet()) {
+            String name = entry.getKey().name();
+            List<String> tags = entry.getKey().tags();
+            Histogram histogram = entry.getValue();
+            writeType(out, typed, name, "histogram");
+
+            long cumulative = 0;
+            for (int i = 0; i < SimpleMetricsRegistry.BUCKETS.length; i++) {
+                cumulative += histogram.bucketCounts[i].sum();
+                writeSample(out, name + "_bucket", tags, Double.toString(SimpleMetricsRegistry.BUCKETS[i]), cumulative);
+            }
+            long count = histogram.count.sum();
+            writeSample(out, name + "_bucket", tags, "+Inf", count);
+            writeSample(out, name + "_sum", tags, null, histogram.sumNanos.sum() / 1e9);
+            writeSample(out, name + "_count", tags, null, count);
+        }
+
+        for (Map.Entry<MetricKey, DoubleSupplier> entry : sorted(registry.gauges()).entrySet()) {
+            writeType(out, typed, entry.getKey().name(), "gauge");
+            writeSample(out, entry.getKey().name(), entry.getKey().tags(), null, entry.getValue().getAsDouble());
+        }
+        return out.toString();
+    }
+
+    private static <V> Map<MetricKey, V> sorted(Map<MetricKey, V> metrics) {
+        Map<MetricKey, V> sorted = new TreeMap<>((a, b) -> {
+            int byName = a.name().compareTo(b.name());
+            return byName != 0 ? byName : a.tags().toString().compareTo(b.tags().toString());
+        });
+        sorted.putAll(metrics);
+        return sorted;
+    }
+
+    private static void writeType(StringBuilder out, Set<String> typed, String name, String type) {
+        if (typed.add(name)) {
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+    }
+
+    private static void writeSample(StringBuilder out, String name, List<String> tags, String le, double value) {
+        out.append(name);
+        if (!tags.isEmpty() || le != null) {
+            out.append('{');
+            for (int i = 0; i < tags.size(); i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                writeLabel(out, tags.get(i), tags.get(i + 1));
+            }
+            if (le != null) {
+                if (!tags.isEmpty()) {
+                    out.append(',');
+                }
+                writeLabel(out, "le", le);
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static void writeLabel(StringBuilder out, String key, String value) {
+        out.append(key).append("=\"");
+        String text = value == null ? "" : value;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
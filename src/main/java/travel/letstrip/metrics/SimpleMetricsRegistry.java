@@ -0,0 +1,119 @@
+package travel.letstrip.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In-memory {@link MetricsRegistry} suitable for scraping with {@link PrometheusExporter}.
+ * <p>
+ * Counters and histogram buckets are {@link LongAdder}s, so concurrent updates from many
+ * sending threads do not contend. Latency histograms use fixed buckets from 5 ms to 30 s.
+ */
+public class SimpleMetricsRegistry implements MetricsRegistry {
+
+    /** Upper bounds of the latency histogram buckets, in seconds. */
+    static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    private final Map<MetricKey, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<MetricKey, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<MetricKey, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<MetricKey, DoubleSupplier> functionCounters = new ConcurrentHashMap<>();
+
+    @Override
+    public void incrementCounter(String name, String... tags) {
+        counters.computeIfAbsent(new MetricKey(name, tags), k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordTime(String name, long durationNanos, String... tags) {
+        histograms.computeIfAbsent(new MetricKey(name, tags), k -> new Histogram()).record(durationNanos);
+    }
+
+    @Override
+    public void registerGauge(String name, DoubleSupplier value, String... tags) {
+        gauges.put(new MetricKey(name, tags), value);
+    }
+
+    @Override
+    public void registerCounter(String name, DoubleSupplier value, String... tags) {
+        functionCounters.put(new MetricKey(name, tags), value);
+    }
+
+    @Override
+    public void unregister(String name, String... tags) {
+        MetricKey key = new MetricKey(name, tags);
+        gauges.remove(key);
+        functionCounters.remove(key);
+    }
+
+    /**
+     * Returns the current value of a counter.
+     *
+     * @param name The metric name.
+     * @param tags Alternating tag keys and values, exactly as used when incrementing.
+     * @return The counter value, or {@code 0} if it was never incremented.
+     */
+    public long getCounter(String name, String... tags) {
+        LongAdder counter = counters.get(new MetricKey(name, tags));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    Map<MetricKey, LongAdder> counters() {
+        return counters;
+    }
+
+    Map<MetricKey, Histogram> histograms() {
+        return histograms;
+    }
+
+    Map<MetricKey, DoubleSupplier> gauges() {
+        return gauges;
+    }
+
+    Map<MetricKey, DoubleSupplier> functionCounters() {
+        return functionCounters;
+    }
+
+    /**
+     * Identity of a single time series: the metric name plus its tag pairs.
+     */
+    record MetricKey(String name, List<String> tags) {
+        MetricKey(String name, String[] tags) {
+            this(name, List.of(tags));
+            if (tags.length % 2 != 0) {
+                throw new IllegalArgumentException("Tags must be key/value pairs: " + Arrays.toString(tags));
+            }
+        }
+    }
+
+    /**
+     * Fixed-bucket latency histogram. Bucket counts are not cumulative; the exporter adds
+     * them up.
+     */
+    static final class Histogram {
+        final LongAdder[] bucketCounts = new LongAdder[BUCKETS.length + 1];
+        final LongAdder count = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < bucketCounts.length; i++) {
+                bucketCounts[i] = new LongAdder();
+            }
+        }
+
+        void record(long durationNanos) {
+            double seconds = durationNanos / 1e9;
+            int bucket = 0;
+            while (bucket < BUCKETS.length && seconds > BUCKETS[bucket]) {
+                bucket++;
+            }
+            bucketCounts[bucket].increment();
+            count.increment();
+            sumNanos.add(durationNanos);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package travel.letstrip.service;
+
+import java.io.File;
+
+/**
+ * One photo or document of an album sent with {@link TelegramBotService#sendAlbum}.
+ * <p>
+ * An item refers either to a local file, which is uploaded (or re-sent by its cached
+ * {@code file_id}), or to a {@code file_id} of media already stored on Telegram's servers.
+ */
+public class AlbumItem {
+    private final boolean photo;
+    private final File file;
+    private final String fileId;
+    private final String caption;
+
+    private AlbumItem(boolean photo, File file, String fileId, String caption) {
+        this.photo = photo;
+        this.file = file;
+        this.fileId = fileId;
+        this.caption = caption;
+    }
+
+    /**
+     * Creates a photo item from a local file.
+     *
+     * @param file The photo file.
+     * @return A new {@link AlbumItem}.
+     */
+    public static AlbumItem photo(File file) {
+        return new AlbumItem(true, file, null, null);
+    }
+
+    /**
+     * Creates a photo item from a photo already uploaded to Telegram.
+     *
+     * @param fileId The {@code file_id} of the photo.
+     * @return A new {@link AlbumItem}.
+     */
+    public static AlbumItem photo(String fileId) {
+        return new AlbumItem(true, null, fileId, null);
+    }
+
+    /**
+     * Creates a document item from a local file.
+     *
+     * @param file The document file.
+     * @return A new {@link AlbumItem}.
+     */
+    public static AlbumItem document(File file) {
+        return new AlbumItem(false, file, null, null);
+    }
+
+    /**
+     * Creates a document item from a document already uploaded to Telegram.
+     *
+     * @param fileId The {@code file_id} of the document.
+     * @return A new {@link AlbumItem}.
+     */
+    public static AlbumItem document(String fileId) {
+        return new AlbumItem(false, null, fileId, null);
+    }
+
+    /**
+     * Returns a copy of this item with a caption. Telegram shows the caption of the first
+     * item as the caption of the whole album.
+     *
+     * @param caption The caption, or {@code null} for none.
+     * @return A new {@link AlbumItem}.
+     */
+    public AlbumItem withCaption(String caption) {
+        return new AlbumItem(photo, file, fileId, caption);
+    }
+
+    /**
+     * Indicates whether this item is a photo rather than a document.
+     *
+     * @return {@code true} for a photo.
+     */
+    public boolean isPhoto() { return photo; }
+
+    /**
+     * Returns the local file of this item.
+     *
+     * @return The file, or {@code null} if the item refers to a {@code file_id}.
+     */
+    public File getFile() { return file; }
+
+    /**
+     * Returns the {@code file_id} of this item.
+     *
+     * @return The {@code file_id}, or {@code null} if the item refers to a local file.
+     */
+    public String getFileId() { return fileId; }
+
+    /**
+     * Returns the caption of this item.
+     *
+     * @return The caption, or {@code null} for none.
+     */
+    public String getCaption() { return caption; }
+}
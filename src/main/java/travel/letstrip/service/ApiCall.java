@@ -0,0 +1,24 @@
+package travel.letstrip.service;
+
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * A single outbound Telegram API invocation, typically a lambda wrapping one of the
+ * {@code execute(...)} methods of the bot.
+ * <p>
+ * Calls are passed to the service's central execution path so that rate limiting
+ * and other cross-cutting concerns are applied uniformly to every request.
+ *
+ * @param <T> The type of the value returned by the Telegram API.
+ */
+@FunctionalInterface
+public interface ApiCall<T> {
+
+    /**
+     * Performs the API request.
+     *
+     * @return The value returned by the Telegram API.
+     * @throws TelegramApiException If the request fails.
+     */
+    T call() throws TelegramApiException;
+}
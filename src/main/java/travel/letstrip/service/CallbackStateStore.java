@@ -0,0 +1,65 @@
+package travel.letstrip.service;
+
+import travel.letstrip.utils.CallbackDataUtil;
+
+/**
+ * Keeps callback payloads that do not fit into Telegram's 64-byte {@code callback_data} on the
+ * server, so a button only has to carry a short token.
+ * <p>
+ * {@link InMemoryCallbackStateStore} is used by default; implementations backed by off-heap
+ * memory, a file, or an external cache can be plugged in through
+ * {@link travel.letstrip.config.TelegramBotManager#setCallbackStateStore(CallbackStateStore)}.
+ * Implementations must be thread-safe.
+ * <pre>{@code
+ * String data = store.build("book", largePayload);   // "book|Q2x3bVx0aKz1"
+ * ...
+ * String payload = store.resolve(callbackQuery.getData());
+ * }</pre>
+ */
+public interface CallbackStateStore {
+
+    /**
+     * Saves a payload under a new token.
+     *
+     * @param payload The payload to save.
+     * @return The token, made of base64url characters only.
+     */
+    String put(String payload);
+
+    /**
+     * Returns the payload saved under a token.
+     *
+     * @param token The token returned by {@link #put(String)}.
+     * @return The payload, or {@code null} if the token is unknown or has expired.
+     */
+    String get(String token);
+
+    /**
+     * Removes the payload saved under a token, e.g. once its keyboard has been used.
+     *
+     * @param token The token returned by {@link #put(String)}.
+     */
+    void remove(String token);
+
+    /**
+     * Saves a payload and builds the callback data referencing it.
+     *
+     * @param command The callback command, i.e. the part routed on by {@link UpdateRouter#onCallback}.
+     * @param payload The payload to save.
+     * @return Callback data of the form {@code COMMAND|TOKEN}.
+     */
+    default String build(String command, String payload) {
+        return CallbackDataUtil.build(command, put(payload));
+    }
+
+    /**
+     * Returns the payload referenced by callback data built with {@link #build(String, String)}.
+     *
+     * @param callbackData The raw callback data string.
+     * @return The payload, or {@code null} if the data holds no token or the token is unknown or has expired.
+     */
+    default String resolve(String callbackData) {
+        String token = CallbackDataUtil.getPart(callbackData, 1);
+        return token == null ? null : get(token);
+    }
+}
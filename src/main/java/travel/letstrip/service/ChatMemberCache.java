@@ -0,0 +1,197 @@
+package travel.letstrip.service;
+
+import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMember;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches {@link ChatMember} lookups by chat and user, so that frequent checks such as
+ * "is this user an admin" do not each cost a {@code getChatMember} request.
+ * <p>
+ * Entries expire after a fixed time to live and the number of entries is bounded. Concurrent
+ * lookups of the same uncached member share a single request. Entries are invalidated, or
+ * replaced with fresher data, when updates reveal that a membership changed; a load that
+ * was in flight when its entry was invalidated is returned to its callers but never cached,
+ * however the invalidation and the end of the load interleave.
+ */
+public class ChatMemberCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Key, CompletableFuture<ChatMember>> loads = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructs a new ChatMemberCache.
+     *
+     * @param maxEntries The maximum number of cached members.
+     * @param ttl How long a cached member is used before it is fetched again.
+     */
+    public ChatMemberCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached member, loading it if it is not cached or has expired.
+     *
+     * @param chatId The chat.
+     * @param userId The user.
+     * @param loader Fetches the member from Telegram.
+     * @return The member.
+     * @throws TelegramApiException If the member had to be loaded and the request failed.
+     */
+    public ChatMember get(long chatId, long userId, ApiCall<ChatMember> loader) throws TelegramApiException {
+        Key key = new Key(chatId, userId);
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.expiresAt < 0) {
+            hits.incrementAndGet();
+            return entry.member;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<ChatMember> load = new CompletableFuture<>();
+        CompletableFuture<ChatMember> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            ChatMember member = loader.call();
+            if (member != null) {
+                storeLoaded(key, load, member);
+            }
+            load.complete(member);
+            return member;
+        } catch (TelegramApiException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Replaces the cached member with data received in an update.
+     *
+     * @param chatId The chat.
+     * @param member The current member state.
+     */
+    public void put(long chatId, ChatMember member) {
+        Key key = new Key(chatId, member.getUser().getId());
+        entries.compute(key, (k, current) -> {
+            loads.remove(k);
+            return newEntry(member);
+        });
+        evictIfFull();
+    }
+
+    /**
+     * Removes the cached member, so the next lookup fetches it again.
+     *
+     * @param chatId The chat.
+     * @param userId The user.
+     */
+    public void invalidate(long chatId, long userId) {
+        entries.compute(new Key(chatId, userId), (k, current) -> {
+            loads.remove(k);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of cached members, including expired ones not evicted yet.
+     *
+     * @return The cache size.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that required or waited for a request.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Caches a loaded member unless its entry was invalidated or replaced while loading.
+     * <p>
+     * The in-flight load registered in {@code loads} acts as the generation of the entry:
+     * {@link #invalidate(long, long)} and {@link #put(long, ChatMember)} remove it under the
+     * same per-key lock of {@code entries} that this check holds, so an invalidation either
+     * happens before the check and the result is discarded, or after the store and removes it.
+     */
+    private void storeLoaded(Key key, CompletableFuture<ChatMember> load, ChatMember member) {
+        entries.compute(key, (k, current) -> loads.remove(k, load) ? newEntry(member) : current);
+        evictIfFull();
+    }
+
+    private Entry newEntry(ChatMember member) {
+        return new Entry(member, System.nanoTime() + ttlNanos);
+    }
+
+    private void evictIfFull() {
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * Drops expired entries and, if that is not enough, arbitrary entries until about a tenth
+     * of the capacity is free, so eviction runs rarely rather than on every insert.
+     */
+    private synchronized void evict() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+        int target = maxEntries - maxEntries / 10;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static ChatMember await(CompletableFuture<ChatMember> load) throws TelegramApiException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TelegramApiException apiException) {
+                throw apiException;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(long chatId, long userId) {
+    }
+
+    private record Entry(ChatMember member, long expiresAt) {
+    }
+}
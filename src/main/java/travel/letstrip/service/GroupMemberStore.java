@@ -0,0 +1,137 @@
+package travel.letstrip.service;
+
+import travel.letstrip.utils.LongHashSet;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe store of the user IDs known to be members of each chat.
+ * <p>
+ * Chats are kept in a {@link ConcurrentHashMap}, and the members of each chat in a
+ * primitive {@link LongHashSet} guarded by its own monitor. Updates for different chats
+ * therefore rarely contend, and large groups need two to three times less memory than a
+ * {@code HashSet<Long>}. Members are added under the map's lock for the chat, so an add
+ * cannot be lost to a concurrent {@link #removeChat(long)}.
+ */
+public class GroupMemberStore {
+    private final Map<Long, LongHashSet> members = new ConcurrentHashMap<>();
+
+    /**
+     * Records a user as a member of a chat.
+     *
+     * @param chatId The ID of the chat.
+     * @param userId The ID of the user.
+     * @return {@code true} if the user was not tracked as a member before.
+     */
+    public boolean add(long chatId, long userId) {
+        // Adding inside compute() serializes with removeChat(), which could otherwise drop
+        // the set between looking it up and adding to it.
+        boolean[] added = new boolean[1];
+        members.compute(chatId, (k, set) -> {
+            LongHashSet target = set != null ? set : new LongHashSet();
+            synchronized (target) {
+                added[0] = target.add(userId);
+            }
+            return target;
+        });
+        return added[0];
+    }
+
+    /**
+     * Removes a user from the members of a chat.
+     *
+     * @param chatId The ID of the chat.
+     * @param userId The ID of the user.
+     * @return {@code true} if the user was tracked as a member.
+     */
+    public boolean remove(long chatId, long userId) {
+        LongHashSet set = members.get(chatId);
+        if (set == null) {
+            return false;
+        }
+        synchronized (set) {
+            return set.remove(userId);
+        }
+    }
+
+    /**
+     * Checks whether a user is tracked as a member of a chat.
+     *
+     * @param chatId The ID of the chat.
+     * @param userId The ID of the user.
+     * @return {@code true} if the user is a known member.
+     */
+    public boolean contains(long chatId, long userId) {
+        LongHashSet set = members.get(chatId);
+        if (set == null) {
+            return false;
+        }
+        synchronized (set) {
+            return set.contains(userId);
+        }
+    }
+
+    /**
+     * Returns the number of tracked members of a chat.
+     *
+     * @param chatId The ID of the chat.
+     * @return The member count, or {@code 0} if the chat is not tracked.
+     */
+    public int size(long chatId) {
+        LongHashSet set = members.get(chatId);
+        if (set == null) {
+            return 0;
+        }
+        synchronized (set) {
+            return set.size();
+        }
+    }
+
+    /**
+     * Returns a copy of the member IDs of a chat as a primitive array.
+     *
+     * @param chatId The ID of the chat.
+     * @return The member IDs in no particular order; empty if the chat is not tracked.
+     */
+    public long[] toArray(long chatId) {
+        LongHashSet set = members.get(chatId);
+        if (set == null) {
+            return new long[0];
+        }
+        synchronized (set) {
+            return set.toArray();
+        }
+    }
+
+    /**
+     * Returns an unmodifiable boxed snapshot of the member IDs of a chat.
+     * Prefer {@link #toArray(long)} or {@link #contains(long, long)} for large chats.
+     *
+     * @param chatId The ID of the chat.
+     * @return An unmodifiable {@code Set<Long>} of member IDs.
+     */
+    public Set<Long> snapshot(long chatId) {
+        long[] ids = toArray(chatId);
+        if (ids.length == 0) {
+            return Collections.emptySet();
+        }
+        Set<Long> result = new HashSet<>(ids.length * 2);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Stops tracking a chat altogether, e.g. after the bot left it or was removed from it.
+     *
+     * @param chatId The ID of the chat.
+     */
+    public void removeChat(long chatId) {
+        members.remove(chatId);
+    }
+}
@@ -0,0 +1,141 @@
+package travel.letstrip.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link CallbackStateStore} keeping payloads in a bounded {@link ConcurrentHashMap}.
+ * <p>
+ * Lookups are a single hash probe, independent of the number of outstanding keyboards, and
+ * take no lock, so callbacks of different chats never wait for each other. Payloads expire
+ * after a fixed time to live; because every entry lives equally long, the insertion order is
+ * also the expiry order. Tokens are therefore queued in insertion order, and expired and
+ * excess entries are evicted from the head of the queue in amortized constant time on each
+ * {@link #put(String)}. Removed entries leave the map at once; their tokens are dropped from
+ * the queue when they reach its head, or by a sweep once the queue grows to twice the bound.
+ * <p>
+ * Tokens are 72 random bits from a {@link SecureRandom}, so users cannot guess tokens of
+ * keyboards sent to other chats by crafting callback data.
+ */
+public class InMemoryCallbackStateStore implements CallbackStateStore {
+
+    /** Default maximum number of stored payloads. */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /** Default time after which a payload is forgotten. */
+    public static final Duration DEFAULT_TTL = Duration.ofDays(2);
+
+    private static final int TOKEN_BYTES = 9;
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /** Tokens in insertion order, including tokens of entries already removed from the map. */
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+    /** Approximate length of {@link #order}, whose own size() is linear. */
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /**
+     * Constructs a store with the default size bound and time to live.
+     */
+    public InMemoryCallbackStateStore() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+    }
+
+    /**
+     * Constructs a new InMemoryCallbackStateStore.
+     *
+     * @param maxEntries The maximum number of stored payloads; the oldest are evicted first.
+     * @param ttl How long a payload is kept.
+     */
+    public InMemoryCallbackStateStore(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public String put(String payload) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        Entry entry = new Entry(payload, System.nanoTime() + ttlNanos);
+        while (true) {
+            random.nextBytes(bytes);
+            String token = TOKEN_ENCODER.encodeToString(bytes);
+            if (entries.putIfAbsent(token, entry) == null) {
+                order.offer(token);
+                queued.incrementAndGet();
+                evict();
+                return token;
+            }
+        }
+    }
+
+    @Override
+    public String get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return entry.payload;
+    }
+
+    @Override
+    public void remove(String token) {
+        entries.remove(token);
+    }
+
+    /**
+     * Returns the number of stored payloads, including expired ones not evicted yet.
+     *
+     * @return The store size.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        String token;
+        while ((token = order.peek()) != null) {
+            Entry entry = entries.get(token);
+            if (entry != null && now - entry.expiresAt <= 0 && entries.size() <= maxEntries) {
+                break;
+            }
+            // Another put may be evicting the same head; only the one that dequeues it goes on.
+            if (order.remove(token)) {
+                queued.decrementAndGet();
+                if (entry != null) {
+                    entries.remove(token, entry);
+                }
+            }
+        }
+        if (queued.get() > 2L * maxEntries && sweeping.compareAndSet(false, true)) {
+            // Tokens of removed entries behind a live head would otherwise pile up until it expires.
+            try {
+                order.removeIf(t -> !entries.containsKey(t));
+                queued.set(order.size());
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private record Entry(String payload, long expiresAt) {
+    }
+}
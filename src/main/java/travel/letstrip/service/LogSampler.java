@@ -0,0 +1,35 @@
+package travel.letstrip.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one in every {@code rate} events, to keep per-update logging cheap under
+ * heavy traffic while still showing a representative trickle of activity.
+ */
+public class LogSampler {
+    private final int rate;
+    private final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Constructs a new LogSampler.
+     *
+     * @param rate Log one in every {@code rate} events; {@code 1} logs every event and
+     * {@code 0} (or less) logs none.
+     */
+    public LogSampler(int rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Decides whether the current event should be logged. Callers should check the log
+     * level first so the counter is not touched when the level is disabled.
+     *
+     * @return {@code true} if the event should be logged.
+     */
+    public boolean sample() {
+        if (rate <= 1) {
+            return rate == 1;
+        }
+        return counter.getAndIncrement() % rate == 0;
+    }
+}
@@ -0,0 +1,242 @@
+package travel.letstrip.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the Telegram {@code file_id} of media that has already been uploaded, so the
+ * same file can be sent again by reference instead of being uploaded once per chat.
+ * <p>
+ * Entries are keyed by media type, absolute path, modification time, and size, so a file
+ * that changes on disk is uploaded again. The cache is bounded (least recently used entries
+ * are evicted first) and entries expire after a configurable time to live.
+ * <p>
+ * When a persistence file is configured, each new entry and each invalidation is appended to
+ * it as one line, so a restart does not lose the cache or bring back a rejected file ID. The
+ * file is compacted on startup and whenever it holds more than twice as many lines as the
+ * cache holds entries.
+ * <p>
+ * Concurrent sends of the same uncached file are coalesced: the first caller uploads and
+ * the others wait for its {@code file_id}, see {@link #claimUpload(String)}.
+ */
+@Slf4j
+public class MediaCache {
+
+    /** Media type of photos sent with {@code sendPhoto}. */
+    public static final String PHOTO = "photo";
+
+    /** Media type of documents sent with {@code sendDocument}. */
+    public static final String DOCUMENT = "document";
+
+    private static final char SEPARATOR = '\t';
+    private static final String REMOVED = "R";
+    private static final int MIN_COMPACTION_LINES = 1_000;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Path persistenceFile;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, CompletableFuture<String>> uploads = new ConcurrentHashMap<>();
+    private long lineCount;
+
+    /**
+     * Constructs a MediaCache and, if a persistence file is given, loads its entries.
+     *
+     * @param maxEntries The maximum number of cached file IDs.
+     * @param ttl How long a cached file ID is used before the file is uploaded again.
+     * @param persistenceFile The file entries are persisted to, or {@code null} to keep them in memory only.
+     */
+    public MediaCache(int maxEntries, Duration ttl, Path persistenceFile) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.persistenceFile = persistenceFile;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > MediaCache.this.maxEntries;
+            }
+        };
+        if (persistenceFile != null) {
+            load();
+        }
+    }
+
+    /**
+     * Builds the cache key of a local file.
+     *
+     * @param mediaType The media type, e.g. {@link #PHOTO} or {@link #DOCUMENT}.
+     * @param file The local file.
+     * @return The cache key, or {@code null} if the file does not exist.
+     */
+    public static String keyOf(String mediaType, File file) {
+        long lastModified = file.lastModified();
+        if (lastModified == 0L) {
+            return null;
+        }
+        return mediaType + '|' + file.getAbsolutePath() + '|' + lastModified + '|' + file.length();
+    }
+
+    /**
+     * Returns the cached file ID for a key.
+     *
+     * @param key The cache key from {@link #keyOf(String, File)}.
+     * @return The file ID, or {@code null} if nothing is cached or the entry has expired.
+     */
+    public synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.storedAt > ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.fileId;
+    }
+
+    /**
+     * Caches the file ID returned by Telegram for an uploaded file.
+     *
+     * @param key The cache key from {@link #keyOf(String, File)}.
+     * @param fileId The file ID returned by Telegram.
+     */
+    public void put(String key, String fileId) {
+        Entry entry = new Entry(fileId, System.currentTimeMillis());
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+        if (persistenceFile != null && isPersistable(key) && isPersistable(fileId)) {
+            append(key + SEPARATOR + entry.fileId + SEPARATOR + entry.storedAt);
+        }
+    }
+
+    /**
+     * Removes a cached file ID, e.g. after Telegram rejected it.
+     *
+     * @param key The cache key from {@link #keyOf(String, File)}.
+     */
+    public synchronized void invalidate(String key) {
+        if (entries.remove(key) != null && persistenceFile != null && isPersistable(key)) {
+            append(REMOVED + SEPARATOR + key);
+        }
+    }
+
+    /**
+     * Returns the number of cached file IDs.
+     *
+     * @return The cache size.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Registers the caller as the uploader of a file unless another upload of the same file
+     * is already in progress.
+     *
+     * @param key The cache key from {@link #keyOf(String, File)}.
+     * @return {@code null} if the caller must upload the file and then call
+     * {@link #completeUpload(String, String)}; otherwise a future completed with the file ID
+     * of the upload in progress, or with {@code null} if that upload fails.
+     */
+    public CompletableFuture<String> claimUpload(String key) {
+        return uploads.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    /**
+     * Finishes an upload claimed with {@link #claimUpload(String)}, caching the file ID and
+     * releasing callers waiting for it.
+     *
+     * @param key The cache key from {@link #keyOf(String, File)}.
+     * @param fileId The file ID returned by Telegram, or {@code null} if the upload failed.
+     */
+    public void completeUpload(String key, String fileId) {
+        if (fileId != null) {
+            put(key, fileId);
+        }
+        CompletableFuture<String> upload = uploads.remove(key);
+        if (upload != null) {
+            upload.complete(fileId);
+        }
+    }
+
+    private static boolean isPersistable(String value) {
+        return value.indexOf(SEPARATOR) < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0;
+    }
+
+    private synchronized void append(String line) {
+        try {
+            Files.writeString(persistenceFile, line + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (++lineCount > Math.max(MIN_COMPACTION_LINES, 2L * maxEntries)) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to persist media cache entry to {}: {}", persistenceFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the persisted entries, dropping expired ones, and rewrites the file so it only
+     * contains the entries that are still live.
+     */
+    private synchronized void load() {
+        if (!Files.exists(persistenceFile)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            List<String> lines = Files.readAllLines(persistenceFile, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                String[] parts = line.split(String.valueOf(SEPARATOR));
+                if (parts.length == 2 && REMOVED.equals(parts[0])) {
+                    entries.remove(parts[1]);
+                    continue;
+                }
+                if (parts.length != 3) {
+                    continue;
+                }
+                try {
+                    long storedAt = Long.parseLong(parts[2]);
+                    if (now - storedAt <= ttlMillis) {
+                        entries.put(parts[0], new Entry(parts[1], storedAt));
+                    }
+                } catch (NumberFormatException e) {
+                    // Skip a line that was only partially written.
+                }
+            }
+            compact();
+        } catch (IOException e) {
+            log.warn("Failed to load media cache from {}: {}", persistenceFile, e.getMessage());
+        }
+    }
+
+    private void compact() throws IOException {
+        Path temp = persistenceFile.resolveSibling(persistenceFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(entry.getKey() + SEPARATOR + entry.getValue().fileId + SEPARATOR + entry.getValue().storedAt);
+                writer.newLine();
+            }
+        }
+        Files.move(temp, persistenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lineCount = entries.size();
+    }
+
+    private record Entry(String fileId, long storedAt) {
+    }
+}
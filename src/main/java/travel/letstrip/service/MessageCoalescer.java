@@ -0,0 +1,208 @@
+package travel.letstrip.service;
+
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import travel.letstrip.config.GroupConfig;
+import travel.letstrip.utils.MessageSplitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Merges bursts of short text messages to the same chat and topic into a single
+ * {@code sendMessage} request.
+ * <p>
+ * The first message submitted for a chat opens a window of {@link GroupConfig#getCoalesceWindowMillis()}.
+ * Messages submitted until the window closes are joined with line breaks and sent together.
+ * The batch is sent early when the next message would not fit into {@value #MAX_MESSAGE_LENGTH}
+ * characters, or when its parse mode differs from that of the batch, since texts with
+ * different parse modes cannot share a message. Batches of the same chat are sent one after
+ * another, so messages keep their order. A text that is too long on its own is sent alone,
+ * and the sender is expected to split it.
+ * <p>
+ * Every submitted message gets a future completed with the merged {@link Message} that carried it.
+ * A batch is dropped once its last send has completed and no text is waiting, so chats
+ * that fall silent do not keep an entry. {@link #close()} sends every open batch at once,
+ * and texts submitted after it are sent on their own.
+ */
+public class MessageCoalescer {
+
+    private static final int MAX_MESSAGE_LENGTH = MessageSplitter.MAX_MESSAGE_LENGTH;
+    private static final String SEPARATOR = "\n";
+
+    private final Map<Key, Batch> batches = new ConcurrentHashMap<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Adds a message to the current batch of its chat and topic, opening a new batch if none is open.
+     *
+     * @param group The target group; its coalescing window must be positive.
+     * @param text The message text.
+     * @param parseMode The parse mode of the text, or {@code null} for plain text.
+     * @param sender Sends the merged message if this text opens a new batch; the returned
+     *               future completes with the sent {@link Message}.
+     * @return A future completed with the {@link Message} the text was sent in.
+     */
+    public CompletableFuture<Message> submit(GroupConfig group, String text, String parseMode,
+                                             Function<SendMessage, CompletableFuture<Message>> sender) {
+        submitted.incrementAndGet();
+        Key key = new Key(group.getChatId(), group.hasTopic() ? group.getTopicId() : null);
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        while (true) {
+            Batch batch = batches.computeIfAbsent(key, Batch::new);
+            synchronized (batch) {
+                // A batch dropped while idle is no longer in the map; use the one that replaced it.
+                if (!batch.dropped) {
+                    add(batch, group, text, parseMode, sender, result);
+                    return result;
+                }
+            }
+        }
+    }
+
+    private void add(Batch batch, GroupConfig group, String text, String parseMode,
+                     Function<SendMessage, CompletableFuture<Message>> sender, CompletableFuture<Message> result) {
+        if (batch.text != null && (!Objects.equals(batch.parseMode, parseMode)
+                || batch.text.length() + SEPARATOR.length() + text.length() > MAX_MESSAGE_LENGTH)) {
+            batch.flush();
+        }
+        if (batch.text == null) {
+            batch.open(parseMode, group.getCoalesceWindowMillis(), sender);
+        } else {
+            batch.text.append(SEPARATOR);
+        }
+        batch.text.append(text);
+        batch.waiters.add(result);
+        if (closed || batch.text.length() + SEPARATOR.length() >= MAX_MESSAGE_LENGTH) {
+            batch.flush();
+        }
+    }
+
+    /**
+     * Sends every open batch without waiting for its window to close. Texts submitted
+     * afterwards are sent immediately instead of being merged.
+     *
+     * @return A future completed when every send started so far has completed.
+     */
+    public CompletableFuture<Void> close() {
+        closed = true;
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        for (Batch batch : batches.values()) {
+            synchronized (batch) {
+                if (batch.text != null) {
+                    batch.flush();
+                }
+                sends.add(batch.lastSend);
+            }
+        }
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Returns the number of messages submitted.
+     *
+     * @return The submitted message count.
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * Returns the number of merged messages sent for the submitted ones.
+     *
+     * @return The sent message count.
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    private record Key(long chatId, Integer topicId) {
+    }
+
+    /**
+     * The open batch of one chat and topic. Guarded by its own monitor.
+     */
+    private final class Batch {
+        private final Key key;
+        private StringBuilder text;
+        private String parseMode;
+        private Function<SendMessage, CompletableFuture<Message>> sender;
+        private List<CompletableFuture<Message>> waiters;
+        private long generation;
+        private boolean dropped;
+        private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+
+        private Batch(Key key) {
+            this.key = key;
+        }
+
+        private void open(String parseMode, long windowMillis, Function<SendMessage, CompletableFuture<Message>> sender) {
+            this.text = new StringBuilder();
+            this.parseMode = parseMode;
+            this.sender = sender;
+            this.waiters = new ArrayList<>();
+            long opened = ++generation;
+            CompletableFuture.delayedExecutor(windowMillis, TimeUnit.MILLISECONDS).execute(() -> {
+                synchronized (this) {
+                    if (generation == opened && text != null) {
+                        flush();
+                    }
+                }
+            });
+        }
+
+        private void flush() {
+            SendMessage sendMessage = new SendMessage();
+            sendMessage.setChatId(Long.toString(key.chatId()));
+            sendMessage.setText(text.toString());
+            if (key.topicId() != null) {
+                sendMessage.setMessageThreadId(key.topicId());
+            }
+            if (parseMode != null) {
+                sendMessage.setParseMode(parseMode);
+            }
+            List<CompletableFuture<Message>> batchWaiters = waiters;
+            Function<SendMessage, CompletableFuture<Message>> batchSender = sender;
+            text = null;
+            sender = null;
+            waiters = null;
+            sent.incrementAndGet();
+
+            // Chained to the previous send of this chat, so batches cannot overtake each other.
+            CompletableFuture<Message> send = lastSend
+                    .handle((message, error) -> null)
+                    .thenCompose(ignored -> batchSender.apply(sendMessage));
+            lastSend = send;
+            send.whenComplete((message, error) -> {
+                for (CompletableFuture<Message> waiter : batchWaiters) {
+                    if (error != null) {
+                        waiter.completeExceptionally(error);
+                    } else {
+                        waiter.complete(message);
+                    }
+                }
+            });
+            // Asynchronously, so that a send completing at once cannot drop the batch while it is being filled.
+            send.handleAsync((message, error) -> {
+                dropIfIdle(send);
+                return null;
+            });
+        }
+
+        private synchronized void dropIfIdle(CompletableFuture<?> completedSend) {
+            if (text == null && lastSend == completedSend) {
+                dropped = true;
+                batches.remove(key, this);
+            }
+        }
+    }
+}
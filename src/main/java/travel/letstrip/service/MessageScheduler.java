@@ -0,0 +1,434 @@
+package travel.letstrip.service;
+
+import lombok.extern.slf4j.Slf4j;
+import travel.letstrip.config.GroupConfig;
+import travel.letstrip.enums.Recurrence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Sends text messages to groups at a later time, once or repeatedly.
+ * <p>
+ * Pending messages are kept in a {@link TimerWheel}, so scheduling and cancelling cost O(1)
+ * even with hundreds of thousands of pending messages, and a single thread wakes up once per
+ * tick to hand the due messages to the sender. Local times are interpreted in the
+ * {@linkplain GroupConfig#zone() zone of the group}, which defaults to
+ * {@link travel.letstrip.utils.DateTimeUtil#DEFAULT_ZONE}; daily and weekly messages keep
+ * their local time across daylight saving changes.
+ * <p>
+ * When a persistence file is configured, every change is appended to it as one line, and the
+ * file is loaded and compacted on startup, so pending messages survive a restart. A message
+ * is marked as sent only after the send completes, so one that was due during a crash is sent
+ * again; messages that fell due while the bot was down are sent right after the start, with
+ * missed occurrences of a recurring message collapsed into one.
+ * <pre>{@code
+ * MessageScheduler scheduler = botService.getMessageScheduler();
+ * scheduler.schedule(group, "Boarding starts in 30 minutes", LocalDateTime.of(2025, 6, 1, 7, 30));
+ * scheduler.scheduleDaily(group, "Good morning! Today's program: ...", LocalTime.of(8, 0));
+ * }</pre>
+ */
+@Slf4j
+public class MessageScheduler implements AutoCloseable {
+
+    /** Default resolution of send times. */
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(100);
+
+    private static final char SEPARATOR = '\t';
+    private static final String NONE = "-";
+    private static final int MIN_COMPACTION_LINES = 10_000;
+
+    private final long tickMillis;
+    private final Path persistenceFile;
+    private final TimerWheel<ScheduledMessage> wheel;
+    private final Map<Long, TimerWheel.Node<ScheduledMessage>> pending = new HashMap<>();
+    private Function<ScheduledMessage, CompletableFuture<?>> sender;
+    private Thread ticker;
+    private BufferedWriter writer;
+    private long lineCount;
+    private long nextId = 1;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a stopped MessageScheduler and, if a persistence file is given, loads the
+     * messages pending in it. Messages can be scheduled right away, but none is sent before
+     * {@link #start(Function)} is called.
+     *
+     * @param tick The resolution of send times.
+     * @param persistenceFile The file pending messages are persisted to, or {@code null} to keep them in memory only.
+     */
+    public MessageScheduler(Duration tick, Path persistenceFile) {
+        this.tickMillis = tick.toMillis();
+        this.persistenceFile = persistenceFile;
+        this.wheel = new TimerWheel<>(tickMillis, System.currentTimeMillis());
+        if (persistenceFile != null) {
+            load();
+        }
+    }
+
+    /**
+     * Starts sending due messages, beginning with those that fell due while the scheduler
+     * was stopped. Calling it again has no effect.
+     *
+     * @param sender Sends a due message; the returned future completes when the send has finished.
+     * @throws IllegalStateException If the scheduler was closed.
+     */
+    public synchronized void start(Function<ScheduledMessage, CompletableFuture<?>> sender) {
+        if (!running) {
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        if (ticker != null) {
+            return;
+        }
+        this.sender = sender;
+        this.ticker = new Thread(this::run, "message-scheduler");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedules a message to be sent once, at an instant.
+     *
+     * @param group The target group.
+     * @param text The message text.
+     * @param at The send time; a time in the past sends the message right away.
+     * @return The {@link ScheduledMessage}, whose ID can be passed to {@link #cancel(long)}.
+     */
+    public ScheduledMessage schedule(GroupConfig group, String text, Instant at) {
+        return register(group, text, Recurrence.ONCE, null, null, group.zone(), at);
+    }
+
+    /**
+     * Schedules a message to be sent once, at a local date and time of the group's zone.
+     *
+     * @param group The target group.
+     * @param text The message text.
+     * @param at The send time in the group's zone.
+     * @return The {@link ScheduledMessage}, whose ID can be passed to {@link #cancel(long)}.
+     */
+    public ScheduledMessage schedule(GroupConfig group, String text, LocalDateTime at) {
+        ZoneId zone = group.zone();
+        return register(group, text, Recurrence.ONCE, null, null, zone, at.atZone(zone).toInstant());
+    }
+
+    /**
+     * Schedules a message to be sent once, after a delay.
+     *
+     * @param group The target group.
+     * @param text The message text.
+     * @param delay The delay.
+     * @return The {@link ScheduledMessage}, whose ID can be passed to {@link #cancel(long)}.
+     */
+    public ScheduledMessage scheduleAfter(GroupConfig group, String text, Duration delay) {
+        return schedule(group, text, Instant.now().plus(delay));
+    }
+
+    /**
+     * Schedules a message to be sent repeatedly, a fixed period apart.
+     *
+     * @param group The target group.
+     * @param text The message text.
+     * @param first The first send time.
+     * @param period The time between two sends; at least one tick.
+     * @return The {@link ScheduledMessage}, whose ID can be passed to {@link #cancel(long)}.
+     * @throws IllegalArgumentException If the period is shorter than one tick.
+     */
+    public ScheduledMessage scheduleAtFixedRate(GroupConfig group, String text, Instant first, Duration period) {
+        if (period.toMillis() < tickMillis) {
+            throw new IllegalArgumentException("Period must be at least " + tickMillis + " ms: " + period);
+        }
+        return register(group, text, Recurrence.FIXED_RATE, period, null, group.zone(), first);
+    }
+
+    /**
+     * Schedules a message to be sent every day at a local time of the group's zone.
+     *
+     * @param group The target group.
+     * @param text The message text.
+     * @param time The local time of day.
+     * @return The {@link ScheduledMessage}, whose ID can be passed to {@link #cancel(long)}.
+     */
+    public ScheduledMessage scheduleDaily(GroupConfig group, String text, LocalTime time) {
+        ZoneId zone = group.zone();
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        ZonedDateTime first = ZonedDateTime.of(now.toLocalDate(), time, zone);
+        if (!first.isAfter(now)) {
+            first = ZonedDateTime.of(now.toLocalDate().plusDays(1), time, zone);
+        }
+        return register(group, text, Recurrence.DAILY, null, time, zone, first.toInstant());
+    }
+
+    /**
+     * Schedules a message to be sent every week on a day, at a local time of the group's zone.
+     *
+     * @param group The target group.
+     * @param text The message text.
+     * @param day The day of the week.
+     * @param time The local time of day.
+     * @return The {@link ScheduledMessage}, whose ID can be passed to {@link #cancel(long)}.
+     */
+    public ScheduledMessage scheduleWeekly(GroupConfig group, String text, DayOfWeek day, LocalTime time) {
+        ZoneId zone = group.zone();
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        LocalDate date = now.toLocalDate().with(TemporalAdjusters.nextOrSame(day));
+        ZonedDateTime first = ZonedDateTime.of(date, time, zone);
+        if (!first.isAfter(now)) {
+            first = ZonedDateTime.of(date.plusWeeks(1), time, zone);
+        }
+        return register(group, text, Recurrence.WEEKLY, null, time, zone, first.toInstant());
+    }
+
+    /**
+     * Cancels a pending message. A message that is being sent at the time of the call is not
+     * affected, but a recurring one is not sent again.
+     *
+     * @param id The ID of the {@link ScheduledMessage}.
+     * @return {@code true} if the message was pending.
+     */
+    public synchronized boolean cancel(long id) {
+        TimerWheel.Node<ScheduledMessage> node = pending.remove(id);
+        if (node == null) {
+            return false;
+        }
+        wheel.remove(node);
+        append(removalLine(id));
+        return true;
+    }
+
+    /**
+     * Returns a pending message.
+     *
+     * @param id The ID of the {@link ScheduledMessage}.
+     * @return The message, or {@code null} if it is not pending.
+     */
+    public synchronized ScheduledMessage get(long id) {
+        TimerWheel.Node<ScheduledMessage> node = pending.get(id);
+        return node != null ? node.value() : null;
+    }
+
+    /**
+     * Returns all pending messages, in no particular order.
+     *
+     * @return A snapshot of the pending messages.
+     */
+    public synchronized List<ScheduledMessage> getPending() {
+        List<ScheduledMessage> messages = new ArrayList<>(pending.size());
+        for (TimerWheel.Node<ScheduledMessage> node : pending.values()) {
+            messages.add(node.value());
+        }
+        return messages;
+    }
+
+    /**
+     * Returns the number of pending messages.
+     *
+     * @return The pending message count.
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops sending messages and closes the persistence file. Pending messages stay in the
+     * file and are loaded again by the next scheduler using it.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close schedule file {}: {}", persistenceFile, e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    private synchronized ScheduledMessage register(GroupConfig group, String text, Recurrence recurrence,
+                                                   Duration period, LocalTime time, ZoneId zone, Instant at) {
+        if (!running) {
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        ScheduledMessage message = new ScheduledMessage(nextId++, group.getChatId(), group.hasTopic() ? group.getTopicId() : null,
+                text, recurrence, period, time, zone, at);
+        pending.put(message.getId(), wheel.add(at.toEpochMilli(), message));
+        append(lineOf(message));
+        return message;
+    }
+
+    private void run() {
+        List<ScheduledMessage> due = new ArrayList<>();
+        while (running) {
+            try {
+                Thread.sleep(tickMillis - System.currentTimeMillis() % tickMillis);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            Instant now = Instant.now();
+            synchronized (this) {
+                wheel.advance(now.toEpochMilli(), due);
+                for (ScheduledMessage message : due) {
+                    ScheduledMessage next = message.next(now);
+                    if (next != null) {
+                        pending.put(next.getId(), wheel.add(next.getNextSendTime().toEpochMilli(), next));
+                    } else {
+                        pending.remove(message.getId());
+                    }
+                }
+            }
+            for (ScheduledMessage message : due) {
+                send(message);
+            }
+            due.clear();
+        }
+    }
+
+    private void send(ScheduledMessage message) {
+        CompletableFuture<?> result;
+        try {
+            result = sender.apply(message);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((sent, error) -> {
+            if (error != null) {
+                log.error("Failed to send scheduled message {} to chat {}: {}", message.getId(), message.getChatId(), error.getMessage());
+            }
+            sendCompleted(message.getId());
+        });
+    }
+
+    /**
+     * Persists the state of a message after a send: the next occurrence of a recurring message,
+     * or the removal of a one-off or cancelled one.
+     */
+    private synchronized void sendCompleted(long id) {
+        TimerWheel.Node<ScheduledMessage> node = pending.get(id);
+        append(node != null ? lineOf(node.value()) : removalLine(id));
+    }
+
+    private static String lineOf(ScheduledMessage message) {
+        return "S" + SEPARATOR + message.getId()
+                + SEPARATOR + message.getChatId()
+                + SEPARATOR + (message.getTopicId() != null ? message.getTopicId() : NONE)
+                + SEPARATOR + message.getRecurrence()
+                + SEPARATOR + (message.getPeriod() != null ? message.getPeriod().toMillis() : NONE)
+                + SEPARATOR + (message.getLocalTime() != null ? message.getLocalTime() : NONE)
+                + SEPARATOR + message.getZone().getId()
+                + SEPARATOR + message.getNextSendTime().toEpochMilli()
+                + SEPARATOR + Base64.getEncoder().encodeToString(message.getText().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String removalLine(long id) {
+        return "R" + SEPARATOR + id;
+    }
+
+    private static ScheduledMessage parse(String[] parts) {
+        return new ScheduledMessage(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                NONE.equals(parts[3]) ? null : Integer.valueOf(parts[3]),
+                new String(Base64.getDecoder().decode(parts[9]), StandardCharsets.UTF_8),
+                Recurrence.valueOf(parts[4]),
+                NONE.equals(parts[5]) ? null : Duration.ofMillis(Long.parseLong(parts[5])),
+                NONE.equals(parts[6]) ? null : LocalTime.parse(parts[6]),
+                ZoneId.of(parts[7]),
+                Instant.ofEpochMilli(Long.parseLong(parts[8])));
+    }
+
+    private void append(String line) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+            if (++lineCount > Math.max(MIN_COMPACTION_LINES, 2L * pending.size())) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to persist schedule change to {}: {}", persistenceFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the persisted messages, replaying the file line by line, and rewrites it so it
+     * only contains the messages that are still pending.
+     */
+    private synchronized void load() {
+        Map<Long, ScheduledMessage> loaded = new LinkedHashMap<>();
+        if (Files.exists(persistenceFile)) {
+            try {
+                for (String line : Files.readAllLines(persistenceFile, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split(String.valueOf(SEPARATOR));
+                    try {
+                        if (parts.length == 10 && "S".equals(parts[0])) {
+                            ScheduledMessage message = parse(parts);
+                            loaded.put(message.getId(), message);
+                        } else if (parts.length == 2 && "R".equals(parts[0])) {
+                            loaded.remove(Long.parseLong(parts[1]));
+                        }
+                    } catch (RuntimeException e) {
+                        // Skip a line that was only partially written.
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Failed to load schedule from {}: {}", persistenceFile, e.getMessage());
+            }
+        }
+        for (ScheduledMessage message : loaded.values()) {
+            pending.put(message.getId(), wheel.add(message.getNextSendTime().toEpochMilli(), message));
+            nextId = Math.max(nextId, message.getId() + 1);
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            log.warn("Failed to compact schedule file {}, scheduled messages are not persisted: {}", persistenceFile, e.getMessage());
+        }
+        if (!loaded.isEmpty()) {
+            log.info("Loaded {} scheduled messages from {}", loaded.size(), persistenceFile);
+        }
+    }
+
+    private void compact() throws IOException {
+        Path temp = persistenceFile.resolveSibling(persistenceFile.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (TimerWheel.Node<ScheduledMessage> node : pending.values()) {
+                out.write(lineOf(node.value()));
+                out.newLine();
+            }
+        }
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        Files.move(temp, persistenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer = Files.newBufferedWriter(persistenceFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        lineCount = pending.size();
+    }
+}
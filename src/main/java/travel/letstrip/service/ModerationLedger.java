@@ -0,0 +1,100 @@
+package travel.letstrip.service;
+
+import lombok.extern.slf4j.Slf4j;
+import travel.letstrip.enums.ModerationAction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the moderation actions that have been applied, so a bulk moderation run that was
+ * interrupted or partially failed can be repeated without applying completed actions again.
+ * <p>
+ * When a ledger file is given, each completed action is appended to it as one line and the
+ * file is loaded on construction, so the ledger survives a restart.
+ */
+@Slf4j
+public class ModerationLedger {
+    private final Path file;
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a ledger kept in memory only.
+     */
+    public ModerationLedger() {
+        this(null);
+    }
+
+    /**
+     * Constructs a ledger persisted to a file and loads the actions already recorded in it.
+     *
+     * @param file The ledger file, or {@code null} to keep the ledger in memory only.
+     */
+    public ModerationLedger(Path file) {
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            try {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        completed.add(line.strip());
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Failed to load moderation ledger from {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks whether an action has already been applied.
+     *
+     * @param action The action.
+     * @param chatId The chat.
+     * @param userId The user.
+     * @return {@code true} if the action was recorded as completed.
+     */
+    public boolean isCompleted(ModerationAction action, long chatId, long userId) {
+        return completed.contains(keyOf(action, chatId, userId));
+    }
+
+    /**
+     * Records an action as applied.
+     *
+     * @param action The action.
+     * @param chatId The chat.
+     * @param userId The user.
+     */
+    public void markCompleted(ModerationAction action, long chatId, long userId) {
+        String key = keyOf(action, chatId, userId);
+        if (completed.add(key) && file != null) {
+            append(key);
+        }
+    }
+
+    /**
+     * Returns the number of recorded actions.
+     *
+     * @return The ledger size.
+     */
+    public int size() {
+        return completed.size();
+    }
+
+    private synchronized void append(String key) {
+        try {
+            Files.writeString(file, key + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Failed to persist moderation ledger entry to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String keyOf(ModerationAction action, long chatId, long userId) {
+        return action.name() + ':' + chatId + ':' + userId;
+    }
+}
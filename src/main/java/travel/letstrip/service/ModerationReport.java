@@ -0,0 +1,87 @@
+package travel.letstrip.service;
+
+import travel.letstrip.enums.ModerationAction;
+import travel.letstrip.enums.ModerationStatus;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated outcome of a bulk moderation run.
+ */
+public class ModerationReport {
+    private final ModerationAction action;
+    private final boolean dryRun;
+    private final List<ModerationResult> results;
+    private final Map<ModerationStatus, Integer> counts = new EnumMap<>(ModerationStatus.class);
+
+    /**
+     * Constructs a new ModerationReport.
+     *
+     * @param action The action of the run.
+     * @param dryRun Whether the run was a dry run.
+     * @param results The outcome of every user/chat pair.
+     */
+    public ModerationReport(ModerationAction action, boolean dryRun, List<ModerationResult> results) {
+        this.action = action;
+        this.dryRun = dryRun;
+        this.results = List.copyOf(results);
+        for (ModerationStatus status : ModerationStatus.values()) {
+            counts.put(status, 0);
+        }
+        for (ModerationResult result : results) {
+            counts.merge(result.getStatus(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Returns the action of the run.
+     *
+     * @return The {@link ModerationAction}.
+     */
+    public ModerationAction getAction() { return action; }
+
+    /**
+     * Indicates whether the run was a dry run.
+     *
+     * @return {@code true} if no action was actually applied.
+     */
+    public boolean isDryRun() { return dryRun; }
+
+    /**
+     * Returns the outcome of every user/chat pair.
+     *
+     * @return An unmodifiable list of results.
+     */
+    public List<ModerationResult> getResults() { return results; }
+
+    /**
+     * Returns the number of pairs with the given outcome.
+     *
+     * @param status The outcome.
+     * @return The count.
+     */
+    public int getCount(ModerationStatus status) { return counts.get(status); }
+
+    /**
+     * Returns the results of the pairs that failed, e.g. to report or retry them.
+     *
+     * @return The failed results.
+     */
+    public List<ModerationResult> getFailures() {
+        return results.stream().filter(result -> result.getStatus() == ModerationStatus.FAILED).toList();
+    }
+
+    /**
+     * Indicates whether every pair succeeded or had already been done.
+     *
+     * @return {@code true} if nothing failed.
+     */
+    public boolean isComplete() { return counts.get(ModerationStatus.FAILED) == 0; }
+
+    @Override
+    public String toString() {
+        return action + (dryRun ? " (dry run)" : "") + ": " + counts;
+    }
+}
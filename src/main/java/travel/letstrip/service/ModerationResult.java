@@ -0,0 +1,67 @@
+package travel.letstrip.service;
+
+import travel.letstrip.enums.ModerationStatus;
+
+/**
+ * Outcome of a moderation action on one user in one chat, as reported by a bulk moderation run.
+ */
+public class ModerationResult {
+    private final long chatId;
+    private final long userId;
+    private final ModerationStatus status;
+    private final String failureReason;
+
+    /**
+     * Constructs a new ModerationResult.
+     *
+     * @param chatId The chat the action targeted.
+     * @param userId The user the action targeted.
+     * @param status The outcome.
+     * @param failureReason The error description if the action failed, or {@code null} otherwise.
+     */
+    public ModerationResult(long chatId, long userId, ModerationStatus status, String failureReason) {
+        this.chatId = chatId;
+        this.userId = userId;
+        this.status = status;
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * Returns the chat the action targeted.
+     *
+     * @return The chat ID.
+     */
+    public long getChatId() { return chatId; }
+
+    /**
+     * Returns the user the action targeted.
+     *
+     * @return The user ID.
+     */
+    public long getUserId() { return userId; }
+
+    /**
+     * Returns the outcome of the action.
+     *
+     * @return The {@link ModerationStatus}.
+     */
+    public ModerationStatus getStatus() { return status; }
+
+    /**
+     * Returns the reason the action failed.
+     *
+     * @return The error description, or {@code null} unless the status is {@link ModerationStatus#FAILED}.
+     */
+    public String getFailureReason() { return failureReason; }
+
+    @Override
+    public String toString() {
+        String target = "user " + userId + " in chat " + chatId;
+        return switch (status) {
+            case SUCCEEDED -> "✓ " + target;
+            case SKIPPED -> "- " + target + " - already done";
+            case DRY_RUN -> "? " + target + " - dry run";
+            case FAILED -> "✗ " + target + " - failed: " + failureReason;
+        };
+    }
+}
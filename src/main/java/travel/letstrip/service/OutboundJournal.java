@@ -0,0 +1,489 @@
+package travel.letstrip.service;
+
+import lombok.extern.slf4j.Slf4j;
+import travel.letstrip.config.GroupConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Crash-safe journal of outbound messages, so that messages accepted for sending survive a
+ * restart and are delivered at least once.
+ * <p>
+ * The journal is an append-only, memory-mapped file of records: one when a message is
+ * enqueued and one when it is acknowledged after a successful send. Each record carries a
+ * CRC, so a record torn by a crash ends recovery cleanly. {@link #enqueue} returns only after
+ * the record has been forced to disk; a background thread forces all records appended since
+ * the previous flush at once (group commit), so concurrent enqueues share the cost of one
+ * {@code fsync}. Acknowledgements are not waited for: losing one only causes a duplicate
+ * send on replay.
+ * <p>
+ * Once acknowledged records make up most of the file, it is compacted: the pending messages
+ * are rewritten to a new file that atomically replaces the old one.
+ */
+@Slf4j
+public class OutboundJournal implements Closeable {
+
+    private static final byte ENQUEUE = 1;
+    private static final byte ACK = 2;
+    // length (4) + type (1) + id (8), followed by the payload and a CRC (4)
+    private static final int HEADER_BYTES = 13;
+    private static final int CRC_BYTES = 4;
+    private static final int NO_TOPIC = Integer.MIN_VALUE;
+    private static final int INITIAL_MAP_BYTES = 4 * 1024 * 1024;
+    private static final int COMPACT_MIN_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * A message recorded in the journal.
+     *
+     * @param id The journal ID, used to acknowledge the message.
+     * @param chatId The target chat.
+     * @param topicId The target topic, or {@code null} for none.
+     * @param parseMode The parse mode of the text, or {@code null} for plain text.
+     * @param text The message text.
+     */
+    public record Entry(long id, long chatId, Integer topicId, String parseMode, String text) {
+    }
+
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dirty = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+    private final Map<Long, Integer> pendingSizes = new LinkedHashMap<>();
+    /** IDs of the messages found pending when the journal was opened and not taken for replay yet. */
+    private final List<Long> recovered = new ArrayList<>();
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long liveBytes;
+    private long nextId = 1;
+    private long appendedSeq;
+    private long flushedSeq;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens a journal, creating the file if needed and recovering the pending messages
+     * recorded in it.
+     *
+     * @param file The journal file.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public OutboundJournal(Path file) throws IOException {
+        this.file = file;
+        open();
+        recover();
+        recovered.addAll(pending.keySet());
+        // Start from a clean file, dropping acknowledged messages and any torn record.
+        lock.lock();
+        try {
+            compact();
+        } finally {
+            lock.unlock();
+        }
+        this.flusher = new Thread(this::flushLoop, "outbound-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Records a message and waits until the record is on disk.
+     *
+     * @param chatId The target chat.
+     * @param topicId The target topic, or {@code null} for none.
+     * @param parseMode The parse mode of the text, or {@code null} for plain text.
+     * @param text The message text.
+     * @return The recorded {@link Entry}.
+     * @throws IOException If the journal cannot be written or synced.
+     */
+    public Entry enqueue(long chatId, Integer topicId, String parseMode, String text) throws IOException {
+        Entry entry;
+        long seq;
+        lock.lock();
+        try {
+            entry = new Entry(nextId++, chatId, topicId, parseMode, text);
+            seq = append(entry);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+        return entry;
+    }
+
+    /**
+     * Records the same message for several groups and waits until all records are on disk,
+     * paying for a single sync.
+     *
+     * @param groups The target groups.
+     * @param parseMode The parse mode of the text, or {@code null} for plain text.
+     * @param text The message text.
+     * @return The recorded entries, in the order of {@code groups}.
+     * @throws IOException If the journal cannot be written or synced.
+     */
+    public List<Entry> enqueue(List<GroupConfig> groups, String parseMode, String text) throws IOException {
+        List<Entry> entries = new ArrayList<>(groups.size());
+        long seq = 0;
+        lock.lock();
+        try {
+            for (GroupConfig group : groups) {
+                Entry entry = new Entry(nextId++, group.getChatId(), group.hasTopic() ? group.getTopicId() : null, parseMode, text);
+                seq = append(entry);
+                entries.add(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+        return entries;
+    }
+
+    /**
+     * Marks a message as delivered, so it is not replayed.
+     *
+     * @param id The journal ID of the message.
+     * @throws IOException If the journal cannot be written.
+     */
+    public void ack(long id) throws IOException {
+        lock.lock();
+        try {
+            if (pending.remove(id) != null) {
+                liveBytes -= pendingSizes.remove(id);
+                appendRecord(ACK, id, null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the messages that were enqueued but not acknowledged yet.
+     *
+     * @return A snapshot of the pending entries, oldest first.
+     */
+    public List<Entry> getPending() {
+        lock.lock();
+        try {
+            return new ArrayList<>(pending.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the messages that were already pending when the journal was opened, i.e. that
+     * an earlier process did not deliver, and that are still not acknowledged. Each of them is
+     * returned by one call only, so that a message is replayed at most once per process;
+     * messages enqueued since the journal was opened are never returned, since whoever
+     * enqueued them is still delivering them.
+     *
+     * @return The recovered entries not taken before, oldest first.
+     */
+    public List<Entry> takeRecovered() {
+        lock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>(recovered.size());
+            for (Long id : recovered) {
+                Entry entry = pending.get(id);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            recovered.clear();
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of messages that were enqueued but not acknowledged yet.
+     *
+     * @return The pending count.
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes outstanding records and closes the journal.
+     *
+     * @throws IOException If the final flush fails.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            dirty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long append(Entry entry) throws IOException {
+        byte[] parseMode = entry.parseMode() == null ? new byte[0] : entry.parseMode().getBytes(StandardCharsets.UTF_8);
+        byte[] text = entry.text().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(8 + 4 + 2 + parseMode.length + 4 + text.length);
+        payload.putLong(entry.chatId());
+        payload.putInt(entry.topicId() == null ? NO_TOPIC : entry.topicId());
+        payload.putShort((short) parseMode.length).put(parseMode);
+        payload.putInt(text.length).put(text);
+        long seq = appendRecord(ENQUEUE, entry.id(), payload.array());
+        pending.put(entry.id(), entry);
+        int size = HEADER_BYTES + payload.capacity() + CRC_BYTES;
+        pendingSizes.put(entry.id(), size);
+        liveBytes += size;
+        return seq;
+    }
+
+    /**
+     * Appends one record to the mapped file. Must be called with the lock held.
+     *
+     * @return The sequence number to wait for with {@link #awaitDurable(long)}.
+     */
+    private long appendRecord(byte type, long id, byte[] payload) throws IOException {
+        if (closed) {
+            throw new IOException("Outbound journal is closed");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        int payloadLength = payload == null ? 0 : payload.length;
+        int length = HEADER_BYTES + payloadLength + CRC_BYTES;
+        ensureCapacity(length);
+
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(8).putLong(0, id));
+        if (payload != null) {
+            crc.update(payload);
+        }
+        buffer.position(position);
+        buffer.putInt(length).put(type).putLong(id);
+        if (payload != null) {
+            buffer.put(payload);
+        }
+        buffer.putInt((int) crc.getValue());
+        position += length;
+        dirty.signal();
+        return ++appendedSeq;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length <= buffer.capacity()) {
+            return;
+        }
+        long size = buffer.capacity();
+        while (position + length > size) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Outbound journal is full");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void awaitDurable(long seq) throws IOException {
+        lock.lock();
+        try {
+            while (flushedSeq < seq) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (closed && !flusher.isAlive()) {
+                    throw new IOException("Outbound journal was closed before the record was synced");
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces all records appended since the previous round to disk, then releases the
+     * writers waiting for them.
+     */
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            long seq;
+            lock.lock();
+            try {
+                while (appendedSeq == flushedSeq && !closed) {
+                    dirty.awaitUninterruptibly();
+                }
+                if (appendedSeq == flushedSeq) {
+                    flushed.signalAll();
+                    return;
+                }
+                target = buffer;
+                seq = appendedSeq;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                target.force();
+            } catch (RuntimeException e) {
+                error = new IOException("Failed to sync outbound journal", e);
+            }
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                    log.error("Outbound journal {} failed: {}", file, error.getMessage());
+                } else {
+                    flushedSeq = Math.max(flushedSeq, seq);
+                    if (position > COMPACT_MIN_BYTES && liveBytes < position / 4) {
+                        compact();
+                    }
+                }
+                flushed.signalAll();
+                if (failure != null) {
+                    return;
+                }
+            } catch (IOException e) {
+                failure = e;
+                log.error("Failed to compact outbound journal {}: {}", file, e.getMessage());
+                flushed.signalAll();
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(INITIAL_MAP_BYTES, Integer.highestOneBit((int) Math.min(channel.size(), Integer.MAX_VALUE / 2)) * 2L);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        position = 0;
+    }
+
+    /**
+     * Replays the records of the file, stopping at the first incomplete or corrupt record.
+     */
+    private void recover() {
+        int limit = buffer.capacity();
+        while (position + HEADER_BYTES + CRC_BYTES <= limit) {
+            int length = buffer.getInt(position);
+            if (length < HEADER_BYTES + CRC_BYTES || position + length > limit) {
+                break;
+            }
+            byte type = buffer.get(position + 4);
+            long id = buffer.getLong(position + 5);
+            byte[] payload = new byte[length - HEADER_BYTES - CRC_BYTES];
+            buffer.get(position + HEADER_BYTES, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(type);
+            crc.update(ByteBuffer.allocate(8).putLong(0, id));
+            crc.update(payload);
+            if (buffer.getInt(position + length - CRC_BYTES) != (int) crc.getValue()) {
+                log.warn("Outbound journal {} has a torn record at offset {}; ignoring the rest", file, position);
+                break;
+            }
+            if (type == ENQUEUE) {
+                ByteBuffer data = ByteBuffer.wrap(payload);
+                long chatId = data.getLong();
+                int topicId = data.getInt();
+                byte[] parseMode = new byte[data.getShort()];
+                data.get(parseMode);
+                byte[] text = new byte[data.getInt()];
+                data.get(text);
+                pending.put(id, new Entry(id, chatId, topicId == NO_TOPIC ? null : topicId,
+                        parseMode.length == 0 ? null : new String(parseMode, StandardCharsets.UTF_8),
+                        new String(text, StandardCharsets.UTF_8)));
+                pendingSizes.put(id, length);
+                liveBytes += length;
+            } else if (type == ACK && pending.remove(id) != null) {
+                liveBytes -= pendingSizes.remove(id);
+            }
+            nextId = Math.max(nextId, id + 1);
+            position += length;
+        }
+        if (!pending.isEmpty()) {
+            log.info("Recovered {} pending outbound messages from {}", pending.size(), file);
+        }
+    }
+
+    private void syncDirectory() {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the rename is still atomic.
+            log.debug("Could not sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the pending messages to a fresh file that replaces the journal. Must be called
+     * with the lock held, or before the flusher is started.
+     */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        List<Entry> live = new ArrayList<>(pending.values());
+        buffer.force();
+        channel.close();
+
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAP_BYTES, Integer.highestOneBit(
+                (int) Math.min(liveBytes, Integer.MAX_VALUE / 4)) * 4L));
+        position = 0;
+        pending.clear();
+        pendingSizes.clear();
+        liveBytes = 0;
+        for (Entry entry : live) {
+            append(entry);
+        }
+        buffer.force();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        // Everything still pending is now on disk, and dropped acknowledgements need no sync.
+        flushedSeq = appendedSeq;
+    }
+}
@@ -0,0 +1,118 @@
+package travel.letstrip.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces Telegram's outbound rate limits for a single bot token.
+ * <p>
+ * Every request consumes one token from a global bucket (about 30 messages per second)
+ * and one token from a bucket dedicated to the target chat (about 20 messages per minute
+ * for groups and one message per second for private chats). Per-chat buckets are created
+ * lazily and dropped again once they have refilled completely; once many chats are tracked,
+ * full buckets are swept out at most once per second, so sending to a large number of chats
+ * does not scan every bucket on each send.
+ */
+public class RateLimiter {
+
+    /** Default number of requests per second allowed across all chats. */
+    public static final int DEFAULT_GLOBAL_PER_SECOND = 30;
+
+    /** Default number of messages per minute allowed in a single group. */
+    public static final int DEFAULT_GROUP_PER_MINUTE = 20;
+
+    /** Default number of messages per second allowed in a single private chat. */
+    public static final int DEFAULT_PRIVATE_PER_SECOND = 1;
+
+    private static final int EVICTION_THRESHOLD = 10_000;
+    private static final long SWEEP_INTERVAL_MILLIS = 1_000;
+
+    private final TokenBucket globalBucket;
+    private final int groupPerMinute;
+    private final int privatePerSecond;
+    private final Map<Long, TokenBucket> chatBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /**
+     * Constructs a RateLimiter using Telegram's documented default limits.
+     */
+    public RateLimiter() {
+        this(DEFAULT_GLOBAL_PER_SECOND, DEFAULT_GROUP_PER_MINUTE, DEFAULT_PRIVATE_PER_SECOND);
+    }
+
+    /**
+     * Constructs a RateLimiter with custom limits.
+     *
+     * @param globalPerSecond The number of requests per second allowed across all chats.
+     * @param groupPerMinute The number of messages per minute allowed in a single group.
+     * @param privatePerSecond The number of messages per second allowed in a single private chat.
+     */
+    public RateLimiter(int globalPerSecond, int groupPerMinute, int privatePerSecond) {
+        this.globalBucket = new TokenBucket(globalPerSecond, globalPerSecond, Duration.ofSeconds(1));
+        this.groupPerMinute = groupPerMinute;
+        this.privatePerSecond = privatePerSecond;
+    }
+
+    /**
+     * Blocks until a request is allowed by the global limit only. Used for requests that are
+     * about a chat but do not post to it, such as moderation actions, which Telegram's
+     * per-chat message limits do not apply to.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void acquireGlobal() throws InterruptedException {
+        globalBucket.acquire();
+    }
+
+    /**
+     * Blocks until a request to the given chat is allowed by both the per-chat and the
+     * global limits. The per-chat token is taken first so that a throttled chat does not
+     * hold back global capacity other chats could use.
+     *
+     * @param chatId The ID of the target chat, or {@code null} for requests not bound to a chat.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void acquire(Long chatId) throws InterruptedException {
+        if (chatId != null) {
+            chatBucket(chatId).acquire();
+        }
+        globalBucket.acquire();
+    }
+
+    /**
+     * Returns the number of chats that currently have a dedicated bucket.
+     *
+     * @return The number of tracked chats.
+     */
+    public int getTrackedChatCount() {
+        return chatBuckets.size();
+    }
+
+    private TokenBucket chatBucket(Long chatId) {
+        TokenBucket bucket = chatBuckets.get(chatId);
+        if (bucket == null) {
+            if (chatBuckets.size() >= EVICTION_THRESHOLD) {
+                sweepIfDue(System.currentTimeMillis());
+            }
+            bucket = chatBuckets.computeIfAbsent(chatId, this::newChatBucket);
+        }
+        return bucket;
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now >= due && nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS)) {
+            chatBuckets.values().removeIf(TokenBucket::isFull);
+        }
+    }
+
+    private TokenBucket newChatBucket(Long chatId) {
+        // Group and supergroup IDs are negative, private chats use the positive user ID.
+        if (chatId < 0) {
+            return new TokenBucket(groupPerMinute, groupPerMinute, Duration.ofMinutes(1));
+        }
+        return new TokenBucket(privatePerSecond, privatePerSecond, Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,218 @@
+package travel.letstrip.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries outbound Telegram API calls that failed for transient reasons.
+ * <p>
+ * Two kinds of failures are retried:
+ * <ul>
+ *     <li>{@code 429 Too Many Requests}: the {@code retry_after} value returned by Telegram is
+ *     honoured per chat, so every request to that chat waits until the cooldown has passed,
+ *     not only the one that was rejected.</li>
+ *     <li>Server errors ({@code 5xx}) and network failures: retried with exponential backoff
+ *     and random jitter.</li>
+ * </ul>
+ * All other errors (bad requests, validation failures, interrupts) are rethrown immediately.
+ * The number of attempts is capped, and counters are kept for monitoring.
+ */
+@Slf4j
+public class RetryScheduler {
+
+    /** Default maximum number of attempts per call, including the first one. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /** Default delay before the first retry of a transient error. */
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(500);
+
+    /** Default upper bound for a single backoff delay. */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(30);
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final long GLOBAL_KEY = Long.MIN_VALUE;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Map<Long, Long> cooldownUntil = new ConcurrentHashMap<>();
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    /**
+     * Constructs a RetryScheduler with the default attempt cap and backoff delays.
+     */
+    public RetryScheduler() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Constructs a RetryScheduler with a custom attempt cap and backoff delays.
+     *
+     * @param maxAttempts The maximum number of attempts per call, including the first one.
+     * @param baseDelay The delay before the first retry of a transient error.
+     * @param maxDelay The upper bound for a single backoff delay.
+     */
+    public RetryScheduler(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+    }
+
+    /**
+     * Performs the call, waiting out any cooldown of the target chat first and retrying
+     * transient failures.
+     *
+     * @param chatId The ID of the target chat, or {@code null} if the call is not bound to a chat.
+     * @param apiCall The API request to perform.
+     * @param <T> The type of the value returned by the Telegram API.
+     * @return The value returned by the Telegram API.
+     * @throws TelegramApiException The last failure if the call is not retryable or all attempts are used up.
+     */
+    public <T> T execute(Long chatId, ApiCall<T> apiCall) throws TelegramApiException {
+        long key = chatId != null ? chatId : GLOBAL_KEY;
+        for (int attempt = 1; ; attempt++) {
+            awaitCooldown(key);
+            attempts.incrementAndGet();
+            try {
+                return apiCall.call();
+            } catch (TelegramApiException e) {
+                long delayMillis = retryDelayMillis(key, e, attempt);
+                if (delayMillis < 0) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    log.warn("Giving up on chat {} after {} attempts: {}", chatId, attempt, e.getMessage());
+                    throw e;
+                }
+                retries.incrementAndGet();
+                log.debug("Retrying request to chat {} in {} ms (attempt {}): {}", chatId, delayMillis, attempt, e.getMessage());
+                sleep(delayMillis, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of attempts made, including first attempts and retries.
+     *
+     * @return The attempt count.
+     */
+    public long getAttemptCount() { return attempts.get(); }
+
+    /**
+     * Returns the number of retries performed after a failed attempt.
+     *
+     * @return The retry count.
+     */
+    public long getRetryCount() { return retries.get(); }
+
+    /**
+     * Returns the number of {@code 429 Too Many Requests} responses received.
+     *
+     * @return The rate-limited response count.
+     */
+    public long getRateLimitedCount() { return rateLimited.get(); }
+
+    /**
+     * Returns the number of calls that still failed after the maximum number of attempts.
+     *
+     * @return The exhausted call count.
+     */
+    public long getExhaustedCount() { return exhausted.get(); }
+
+    /**
+     * Returns the number of chats currently cooling down after a {@code 429} response.
+     *
+     * @return The number of chats with an active cooldown.
+     */
+    public int getCoolingDownChatCount() {
+        long now = System.nanoTime();
+        cooldownUntil.values().removeIf(until -> until - now <= 0);
+        return cooldownUntil.size();
+    }
+
+    /**
+     * Determines how long to wait before retrying a failed call.
+     *
+     * @return The delay in milliseconds, or {@code -1} if the failure must not be retried.
+     */
+    private long retryDelayMillis(long key, TelegramApiException e, int attempt) {
+        if (e instanceof TelegramApiValidationException || e.getCause() instanceof InterruptedException) {
+            return -1;
+        }
+        if (e instanceof TelegramApiRequestException requestException && requestException.getErrorCode() != null) {
+            int errorCode = requestException.getErrorCode();
+            if (errorCode == TOO_MANY_REQUESTS) {
+                rateLimited.incrementAndGet();
+                long delayMillis = TimeUnit.SECONDS.toMillis(retryAfterSeconds(requestException));
+                cooldownUntil.merge(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), Math::max);
+                return delayMillis;
+            }
+            return errorCode >= 500 ? backoffMillis(attempt) : -1;
+        }
+        // No error code means the request never got a proper answer, e.g. a network failure.
+        return e.getCause() instanceof IOException ? backoffMillis(attempt) : -1;
+    }
+
+    private static int retryAfterSeconds(TelegramApiRequestException e) {
+        ResponseParameters parameters = e.getParameters();
+        if (parameters != null && parameters.getRetryAfter() != null && parameters.getRetryAfter() > 0) {
+            return parameters.getRetryAfter();
+        }
+        return 1;
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half of the exponential delay is fixed and
+     * the other half is random, which spreads out retries from concurrent callers.
+     */
+    private long backoffMillis(int attempt) {
+        long exponential = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        long half = exponential / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private void awaitCooldown(long key) throws TelegramApiException {
+        Long until = cooldownUntil.get(key);
+        if (until == null) {
+            return;
+        }
+        long waitNanos = until - System.nanoTime();
+        if (waitNanos <= 0) {
+            cooldownUntil.remove(key, until);
+            return;
+        }
+        sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1, null);
+    }
+
+    private static void sleep(long millis, TelegramApiException cause) throws TelegramApiException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            TelegramApiException interrupted = new TelegramApiException("Interrupted while waiting to retry", e);
+            if (cause != null) {
+                interrupted.addSuppressed(cause);
+            }
+            throw interrupted;
+        }
+    }
+}
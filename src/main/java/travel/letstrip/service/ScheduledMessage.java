@@ -0,0 +1,142 @@
+package travel.letstrip.service;
+
+import travel.letstrip.enums.Recurrence;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * A text message registered with the {@link MessageScheduler}, together with its next send
+ * time and how it recurs.
+ * <p>
+ * Instances are immutable; after each send of a recurring message the scheduler replaces it
+ * with a copy carrying the next send time.
+ */
+public class ScheduledMessage {
+    private final long id;
+    private final long chatId;
+    private final Integer topicId;
+    private final String text;
+    private final Recurrence recurrence;
+    private final Duration period;
+    private final LocalTime localTime;
+    private final ZoneId zone;
+    private final Instant nextSendTime;
+
+    ScheduledMessage(long id, long chatId, Integer topicId, String text, Recurrence recurrence,
+                     Duration period, LocalTime localTime, ZoneId zone, Instant nextSendTime) {
+        this.id = id;
+        this.chatId = chatId;
+        this.topicId = topicId;
+        this.text = text;
+        this.recurrence = recurrence;
+        this.period = period;
+        this.localTime = localTime;
+        this.zone = zone;
+        this.nextSendTime = nextSendTime;
+    }
+
+    /**
+     * Returns the ID assigned by the scheduler, used to cancel the message.
+     *
+     * @return The schedule ID.
+     */
+    public long getId() { return id; }
+
+    /**
+     * Returns the chat the message is sent to.
+     *
+     * @return The chat ID.
+     */
+    public long getChatId() { return chatId; }
+
+    /**
+     * Returns the topic the message is sent to.
+     *
+     * @return The topic ID, or {@code null} to send to the main chat.
+     */
+    public Integer getTopicId() { return topicId; }
+
+    /**
+     * Returns the message text.
+     *
+     * @return The text.
+     */
+    public String getText() { return text; }
+
+    /**
+     * Returns how often the message is sent.
+     *
+     * @return The {@link Recurrence}.
+     */
+    public Recurrence getRecurrence() { return recurrence; }
+
+    /**
+     * Returns the period of a {@link Recurrence#FIXED_RATE} message.
+     *
+     * @return The period, or {@code null} for other recurrences.
+     */
+    public Duration getPeriod() { return period; }
+
+    /**
+     * Returns the local time of day a {@link Recurrence#DAILY} or {@link Recurrence#WEEKLY}
+     * message is sent at.
+     *
+     * @return The local time, or {@code null} for other recurrences.
+     */
+    public LocalTime getLocalTime() { return localTime; }
+
+    /**
+     * Returns the time zone the send times are computed in.
+     *
+     * @return The zone.
+     */
+    public ZoneId getZone() { return zone; }
+
+    /**
+     * Returns the time the message is sent next.
+     *
+     * @return The next send time.
+     */
+    public Instant getNextSendTime() { return nextSendTime; }
+
+    /**
+     * Computes the first send time of a recurring message that is later than {@code now},
+     * skipping occurrences that were missed, e.g. while the bot was down.
+     *
+     * @param now The current time.
+     * @return A copy with the new send time, or {@code null} if the message does not recur.
+     */
+    ScheduledMessage next(Instant now) {
+        Instant next;
+        switch (recurrence) {
+            case FIXED_RATE -> {
+                long periodMillis = period.toMillis();
+                long missed = Math.max(0, now.toEpochMilli() - nextSendTime.toEpochMilli()) / periodMillis + 1;
+                next = nextSendTime.plusMillis(missed * periodMillis);
+            }
+            case DAILY, WEEKLY -> {
+                int days = recurrence == Recurrence.DAILY ? 1 : 7;
+                // Stepping in local dates keeps the local time across daylight saving changes.
+                ZonedDateTime candidate = nextSendTime.atZone(zone);
+                do {
+                    candidate = ZonedDateTime.of(candidate.toLocalDate().plusDays(days), localTime, zone);
+                } while (!candidate.toInstant().isAfter(now));
+                next = candidate.toInstant();
+            }
+            default -> {
+                return null;
+            }
+        }
+        return new ScheduledMessage(id, chatId, topicId, text, recurrence, period, localTime, zone, next);
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledMessage{id=" + id + ", chatId=" + chatId + ", recurrence=" + recurrence
+                + ", nextSendTime=" + nextSendTime + '}';
+    }
+}
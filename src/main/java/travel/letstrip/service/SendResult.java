@@ -0,0 +1,87 @@
+package travel.letstrip.service;
+
+import travel.letstrip.config.GroupConfig;
+
+/**
+ * Outcome of a single send to one group, as reported by a broadcast.
+ */
+public class SendResult {
+    private final GroupConfig group;
+    private final boolean success;
+    private final String failureReason;
+    private final long latencyMillis;
+
+    /**
+     * Constructs a new SendResult.
+     *
+     * @param group The {@link GroupConfig} the message was sent to.
+     * @param success Whether the Telegram API accepted the message.
+     * @param failureReason The error description if the send failed, or {@code null} on success.
+     * @param latencyMillis The time spent on the send, including rate-limit waits, in milliseconds.
+     */
+    public SendResult(GroupConfig group, boolean success, String failureReason, long latencyMillis) {
+        this.group = group;
+        this.success = success;
+        this.failureReason = failureReason;
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Creates a successful result.
+     *
+     * @param group The target group.
+     * @param latencyMillis The send latency in milliseconds.
+     * @return A new successful {@link SendResult}.
+     */
+    public static SendResult success(GroupConfig group, long latencyMillis) {
+        return new SendResult(group, true, null, latencyMillis);
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param group The target group.
+     * @param failureReason The error description.
+     * @param latencyMillis The send latency in milliseconds.
+     * @return A new failed {@link SendResult}.
+     */
+    public static SendResult failure(GroupConfig group, String failureReason, long latencyMillis) {
+        return new SendResult(group, false, failureReason, latencyMillis);
+    }
+
+    /**
+     * Returns the group the message was sent to.
+     *
+     * @return The target {@link GroupConfig}.
+     */
+    public GroupConfig getGroup() { return group; }
+
+    /**
+     * Indicates whether the send succeeded.
+     *
+     * @return {@code true} if the message was delivered, {@code false} otherwise.
+     */
+    public boolean isSuccess() { return success; }
+
+    /**
+     * Returns the reason the send failed.
+     *
+     * @return The error description, or {@code null} if the send succeeded.
+     */
+    public String getFailureReason() { return failureReason; }
+
+    /**
+     * Returns the time spent on the send, including any rate-limit wait.
+     *
+     * @return The latency in milliseconds.
+     */
+    public long getLatencyMillis() { return latencyMillis; }
+
+    @Override
+    public String toString() {
+        if (success) {
+            return "✓ " + group.getName() + " - send (" + latencyMillis + " ms)";
+        }
+        return "✗ " + group.getName() + " - failed: " + failureReason + " (" + latencyMillis + " ms)";
+    }
+}
@@ -0,0 +1,329 @@
+package travel.letstrip.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMember;
+import travel.letstrip.enums.SpamAction;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link UpdateFilter} that detects flooding and repeated messages in groups and acts on the
+ * offending users automatically.
+ * <p>
+ * For every user in every group it tracks:
+ * <ul>
+ *     <li>the message rate, in a ring of {@value #FLOOD_BUCKETS} time buckets covering the
+ *     flood window, so the sliding count costs a few array slots per user;</li>
+ *     <li>fingerprints of the last messages (a 64-bit hash of the normalized text or caption
+ *     and attached media), to count repeats within the duplicate window.</li>
+ * </ul>
+ * When a message exceeds either limit, it is deleted and the configured {@link SpamAction}
+ * is applied; the message is not passed on to the handlers. Administrators are exempt.
+ * Users idle for longer than both windows are evicted, and the number of tracked users is
+ * bounded.
+ * <pre>{@code
+ * manager.getRouter().filter(new SpamGuard()
+ *         .floodLimit(10, Duration.ofSeconds(10))
+ *         .duplicateLimit(3, Duration.ofMinutes(1))
+ *         .action(SpamAction.MUTE));
+ * }</pre>
+ * Configure the guard before registering it.
+ */
+@Slf4j
+public class SpamGuard implements UpdateFilter {
+
+    private static final int FLOOD_BUCKETS = 8;
+    private static final long SWEEP_INTERVAL_MILLIS = 1_000;
+
+    private int maxMessages = 10;
+    private long floodBucketMillis = Duration.ofSeconds(10).toMillis() / FLOOD_BUCKETS;
+    private int maxDuplicates = 3;
+    private long duplicateWindowMillis = Duration.ofMinutes(1).toMillis();
+    private SpamAction action = SpamAction.DELETE;
+    private Duration muteDuration = Duration.ofMinutes(10);
+    private boolean exemptAdmins = true;
+    private int maxTrackedUsers = 100_000;
+
+    private final Map<Key, UserState> users = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+    private final AtomicLong flagged = new AtomicLong();
+
+    /**
+     * Sets how many messages a user may send within a window.
+     *
+     * @param maxMessages The number of messages allowed per window; {@code 10} by default,
+     *                    {@code 0} disables the check.
+     * @param window The window; ten seconds by default.
+     * @return This guard, for chaining.
+     */
+    public SpamGuard floodLimit(int maxMessages, Duration window) {
+        this.maxMessages = maxMessages;
+        this.floodBucketMillis = Math.max(1, window.toMillis() / FLOOD_BUCKETS);
+        return this;
+    }
+
+    /**
+     * Sets how many identical messages a user may send within a window.
+     *
+     * @param maxDuplicates The number of identical messages allowed per window; {@code 3} by
+     *                      default, {@code 0} disables the check.
+     * @param window The window; one minute by default.
+     * @return This guard, for chaining.
+     */
+    public SpamGuard duplicateLimit(int maxDuplicates, Duration window) {
+        this.maxDuplicates = maxDuplicates;
+        this.duplicateWindowMillis = window.toMillis();
+        return this;
+    }
+
+    /**
+     * Sets what happens to a user exceeding a limit.
+     *
+     * @param action The action; {@link SpamAction#DELETE} by default.
+     * @return This guard, for chaining.
+     */
+    public SpamGuard action(SpamAction action) {
+        this.action = action;
+        return this;
+    }
+
+    /**
+     * Sets how long {@link SpamAction#MUTE} mutes a user.
+     *
+     * @param muteDuration The mute duration; ten minutes by default.
+     * @return This guard, for chaining.
+     */
+    public SpamGuard muteDuration(Duration muteDuration) {
+        this.muteDuration = muteDuration;
+        return this;
+    }
+
+    /**
+     * Sets whether chat administrators are exempt from the limits.
+     *
+     * @param exemptAdmins {@code true} by default.
+     * @return This guard, for chaining.
+     */
+    public SpamGuard exemptAdmins(boolean exemptAdmins) {
+        this.exemptAdmins = exemptAdmins;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of users tracked across all chats. When it is exceeded, the
+     * state of arbitrary users is dropped until about a tenth of the bound is free.
+     *
+     * @param maxTrackedUsers The bound; {@code 100000} by default.
+     * @return This guard, for chaining.
+     */
+    public SpamGuard maxTrackedUsers(int maxTrackedUsers) {
+        this.maxTrackedUsers = maxTrackedUsers;
+        return this;
+    }
+
+    @Override
+    public boolean accept(Update update, TelegramBotService bot) {
+        if (!update.hasMessage()) {
+            return true;
+        }
+        Message message = update.getMessage();
+        Long chatId = message.getChatId();
+        // Only groups are guarded; service messages such as joins are not counted.
+        if (chatId == null || chatId >= 0 || message.getFrom() == null
+                || !message.getNewChatMembers().isEmpty() || message.getLeftChatMember() != null) {
+            return true;
+        }
+        long userId = message.getFrom().getId();
+        long now = System.currentTimeMillis();
+        sweepIfDue(now);
+
+        UserState state = users.computeIfAbsent(new Key(chatId, userId), key -> new UserState(maxDuplicates + 1));
+        String violation;
+        synchronized (state) {
+            violation = state.record(now, fingerprintOf(message));
+        }
+        if (violation == null || (exemptAdmins && isAdmin(bot, chatId, userId))) {
+            return true;
+        }
+
+        flagged.incrementAndGet();
+        log.info("Spam detected from user {} in chat {} ({}), applying {}", userId, chatId, violation, action);
+        bot.deleteMessage(chatId, message.getMessageId());
+        switch (action) {
+            case MUTE -> bot.muteChatMember(chatId, userId, muteDuration);
+            case KICK -> bot.kickChatMember(chatId, userId);
+            case BAN -> bot.banChatMember(chatId, userId, null);
+            default -> {
+                // DELETE keeps the counters, so every further message over the limit is deleted too.
+                return false;
+            }
+        }
+        users.remove(new Key(chatId, userId));
+        return false;
+    }
+
+    /**
+     * Returns the number of messages that exceeded a limit.
+     *
+     * @return The flagged message count.
+     */
+    public long getFlaggedCount() {
+        return flagged.get();
+    }
+
+    /**
+     * Returns the number of users whose activity is currently tracked.
+     *
+     * @return The tracked user count.
+     */
+    public int getTrackedUserCount() {
+        return users.size();
+    }
+
+    private static boolean isAdmin(TelegramBotService bot, long chatId, long userId) {
+        ChatMember member = bot.getChatMember(chatId, userId);
+        return member != null && ("administrator".equals(member.getStatus()) || "creator".equals(member.getStatus()));
+    }
+
+    /**
+     * Evicts idle users at most once per second and, when too many are tracked, drops
+     * arbitrary users until about a tenth of the bound is free, so that a wave of new users
+     * costs one scan per tenth of the bound rather than one per message.
+     */
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now >= due && nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS)) {
+            long idleMillis = Math.max(floodBucketMillis * FLOOD_BUCKETS, duplicateWindowMillis);
+            users.values().removeIf(state -> now - state.lastSeen > idleMillis);
+        }
+        if (users.size() > maxTrackedUsers) {
+            trim();
+        }
+    }
+
+    private synchronized void trim() {
+        if (users.size() <= maxTrackedUsers) {
+            return;
+        }
+        int target = maxTrackedUsers - maxTrackedUsers / 10;
+        Iterator<Key> keys = users.keySet().iterator();
+        while (users.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Hashes the content of a message, ignoring case and whitespace so trivial variations
+     * of the same text are still recognized.
+     *
+     * @return The fingerprint, or {@code 0} if the message has no text or media.
+     */
+    static long fingerprintOf(Message message) {
+        long hash = 0xcbf29ce484222325L;
+        boolean content = false;
+        String text = message.hasText() ? message.getText() : message.getCaption();
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!Character.isWhitespace(c)) {
+                    hash = (hash ^ Character.toLowerCase(c)) * 0x100000001b3L;
+                    content = true;
+                }
+            }
+        }
+        String mediaId = null;
+        if (message.hasPhoto()) {
+            mediaId = message.getPhoto().get(message.getPhoto().size() - 1).getFileUniqueId();
+        } else if (message.hasDocument()) {
+            mediaId = message.getDocument().getFileUniqueId();
+        } else if (message.hasSticker()) {
+            mediaId = message.getSticker().getFileUniqueId();
+        } else if (message.hasAnimation()) {
+            mediaId = message.getAnimation().getFileUniqueId();
+        } else if (message.hasVideo()) {
+            mediaId = message.getVideo().getFileUniqueId();
+        }
+        if (mediaId != null) {
+            hash = (hash ^ '|') * 0x100000001b3L;
+            for (int i = 0; i < mediaId.length(); i++) {
+                hash = (hash ^ mediaId.charAt(i)) * 0x100000001b3L;
+            }
+            content = true;
+        }
+        return !content ? 0 : hash == 0 ? 1 : hash;
+    }
+
+    private record Key(long chatId, long userId) {
+    }
+
+    /**
+     * Activity of one user in one chat. Guarded by its own monitor.
+     */
+    private final class UserState {
+        private final int[] buckets = new int[FLOOD_BUCKETS];
+        private long lastBucket;
+        private final long[] fingerprints;
+        private final long[] fingerprintTimes;
+        private int nextFingerprint;
+        private volatile long lastSeen;
+
+        private UserState(int fingerprintCapacity) {
+            this.fingerprints = new long[fingerprintCapacity];
+            this.fingerprintTimes = new long[fingerprintCapacity];
+        }
+
+        /**
+         * Records a message and checks the limits.
+         *
+         * @return A description of the exceeded limit, or {@code null} if none was exceeded.
+         */
+        private String record(long now, long fingerprint) {
+            lastSeen = now;
+            String violation = null;
+
+            long bucket = now / floodBucketMillis;
+            if (bucket - lastBucket >= FLOOD_BUCKETS) {
+                Arrays.fill(buckets, 0);
+            } else {
+                for (long b = lastBucket + 1; b <= bucket; b++) {
+                    buckets[(int) (b % FLOOD_BUCKETS)] = 0;
+                }
+            }
+            lastBucket = Math.max(lastBucket, bucket);
+            buckets[(int) (bucket % FLOOD_BUCKETS)]++;
+            if (maxMessages > 0) {
+                int count = 0;
+                for (int value : buckets) {
+                    count += value;
+                }
+                if (count > maxMessages) {
+                    violation = count + " messages in the flood window";
+                }
+            }
+
+            if (fingerprint != 0 && maxDuplicates > 0) {
+                int repeats = 1;
+                for (int i = 0; i < fingerprints.length; i++) {
+                    if (fingerprints[i] == fingerprint && now - fingerprintTimes[i] <= duplicateWindowMillis) {
+                        repeats++;
+                    }
+                }
+                fingerprints[nextFingerprint] = fingerprint;
+                fingerprintTimes[nextFingerprint] = now;
+                nextFingerprint = (nextFingerprint + 1) % fingerprints.length;
+                if (repeats > maxDuplicates && violation == null) {
+                    violation = repeats + " identical messages in the duplicate window";
+                }
+            }
+            return violation;
+        }
+    }
+}
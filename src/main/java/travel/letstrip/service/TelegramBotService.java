@@ -5,18 +5,57 @@ import org.telegram.telegrambots.meta.api.methods.groupadministration.BanChatMem
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.ParseMode;
 import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChatMember;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.RestrictChatMember;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.UnbanChatMember;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
+import org.telegram.telegrambots.meta.api.objects.ChatPermissions;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
 import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.objects.ChatMemberUpdated;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
 import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMember;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaDocument;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaPhoto;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 import travel.letstrip.config.BotConfig;
 import travel.letstrip.config.GroupConfig;
+import travel.letstrip.enums.ModerationAction;
+import travel.letstrip.enums.ModerationStatus;
+import travel.letstrip.enums.RateLimitScope;
+import travel.letstrip.enums.UpdateType;
+import travel.letstrip.metrics.MetricsRegistry;
+import travel.letstrip.metrics.NoopMetricsRegistry;
+import travel.letstrip.utils.ByteBufferInputStream;
+import travel.letstrip.utils.MessageSplitter;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
 
 /**
  * Service class that extends {@link TelegramLongPollingBot} to handle
@@ -28,355 +67,1593 @@ import java.util.*;
  */
 @Slf4j
 public class TelegramBotService extends TelegramLongPollingBot {
+    /** Maximum number of items Telegram accepts in one {@code sendMediaGroup} request. */
+    private static final int MAX_ALBUM_SIZE = 10;
+    /** How long closing waits for coalesced messages that are still being sent. */
+    private static final Duration COALESCER_CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
     private final BotConfig config;
-    private final Map<Long, Set<Long>> groupMembers = new HashMap<>();
+    private final GroupMemberStore groupMembers = new GroupMemberStore();
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final RetryScheduler retryScheduler = new RetryScheduler();
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final UpdateDispatcher updateDispatcher;
+    private final UpdateRouter router;
+    private final LogSampler updateLogSampler;
+    private final MetricsRegistry metrics;
+    private final MediaCache mediaCache;
+    private final CallbackStateStore callbackStateStore;
+    private final ChatMemberCache chatMemberCache;
+    private final OutboundJournal outbox;
+    private final MessageScheduler messageScheduler;
+    private final MessageCoalescer coalescer;
+    private final String[] botTag;
+    private final List<String> registeredMetrics = new ArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     /**
-     * Constructs a new TelegramBotService.
+     * Constructs a new TelegramBotService with an empty {@link UpdateRouter}.
      *
      * @param config The bot configuration containing the bot token, username,
      * and details for managed groups.
      */
     public TelegramBotService(BotConfig config) {
-        this.config = config;
+        this(config, new UpdateRouter());
     }
 
     /**
-     * Retrieves the bot's username as defined in the configuration.
+     * Constructs a new TelegramBotService that routes updates to the handlers of the given router.
      *
-     * @return The bot's username (e.g., "MyAwesomeBot").
+     * @param config The bot configuration containing the bot token, username,
+     * and details for managed groups.
+     * @param router The {@link UpdateRouter} holding the application's update handlers.
      */
-    @Override
-    public String getBotUsername() {
-        return config.getBotUsername();
+    public TelegramBotService(BotConfig config, UpdateRouter router) {
+        this(config, router, NoopMetricsRegistry.INSTANCE);
     }
 
     /**
-     * Retrieves the bot's token as defined in the configuration.
+     * Constructs a new TelegramBotService that reports its activity to a metrics registry.
      *
-     * @return The bot's authentication token.
+     * @param config The bot configuration containing the bot token, username,
+     * and details for managed groups.
+     * @param router The {@link UpdateRouter} holding the application's update handlers.
+     * @param metrics The {@link MetricsRegistry} receiving request and update metrics.
      */
-    @Override
-    public String getBotToken() {
-        return config.getBotToken();
+    public TelegramBotService(BotConfig config, UpdateRouter router, MetricsRegistry metrics) {
+        this(config, router, metrics, new InMemoryCallbackStateStore());
     }
 
     /**
-     * This method is called when an update is received from the Telegram API.
-     * It currently handles incoming text messages, new chat members, and
-     * members leaving the chat by logging the events to the console.
+     * Constructs a new TelegramBotService with a custom store for callback payloads.
      *
-     * @param update The incoming update object from Telegram.
+     * @param config The bot configuration containing the bot token, username,
+     * and details for managed groups.
+     * @param router The {@link UpdateRouter} holding the application's update handlers.
+     * @param metrics The {@link MetricsRegistry} receiving request and update metrics.
+     * @param callbackStateStore The {@link CallbackStateStore} holding payloads of inline keyboards.
      */
-    @Override
-    public void onUpdateReceived(Update update) {
-        if (update.hasMessage() && update.getMessage().hasText()) {
-            String text = update.getMessage().getText();
-            Long chatId = update.getMessage().getChatId();
-            System.out.println("Message received: " + text + " from " + chatId);
-        }
-        if (update.hasMessage()) {
-            if (update.getMessage().getNewChatMembers() != null) {
-                update.getMessage().getNewChatMembers().forEach(user -> {
-                    System.out.println("New member: " + user.getUserName() + " (" + user.getId() + ")");
-                    // Possible to save to DB
-                });
-            }
+    public TelegramBotService(BotConfig config, UpdateRouter router, MetricsRegistry metrics,
+                              CallbackStateStore callbackStateStore) {
+        this(config, router, metrics, callbackStateStore, null);
+    }
 
-            if (update.getMessage().getLeftChatMember() != null) {
-                System.out.println("Member left: " + update.getMessage().getLeftChatMember().getUserName());
-            }
+    /**
+     * Constructs a new TelegramBotService that runs its concurrent work on an executor shared
+     * with other bots, see {@link travel.letstrip.config.MultiBotManager}.
+     *
+     * @param config The bot configuration containing the bot token, username,
+     * and details for managed groups.
+     * @param router The {@link UpdateRouter} holding the application's update handlers.
+     * @param metrics The {@link MetricsRegistry} receiving request and update metrics.
+     * @param callbackStateStore The {@link CallbackStateStore} holding payloads of inline keyboards.
+     * @param executor The executor for update dispatch and asynchronous sends, which is not shut
+     * down when the bot closes; or {@code null} to create a virtual-thread executor owned by this bot.
+     */
+    public TelegramBotService(BotConfig config, UpdateRouter router, MetricsRegistry metrics,
+                              CallbackStateStore callbackStateStore, ExecutorService executor) {
+        this.config = config;
+        this.executor = executor != null ? executor : Executors.newVirtualThreadPerTaskExecutor();
+        this.ownsExecutor = executor == null;
+        this.router = router;
+        this.metrics = metrics;
+        this.callbackStateStore = callbackStateStore;
+        this.updateLogSampler = new LogSampler(config.getUpdateLogSampleRate());
+        this.mediaCache = config.getMediaCacheSize() > 0
+                ? new MediaCache(config.getMediaCacheSize(), config.getMediaCacheTtl(),
+                        config.getMediaCacheFile() != null ? Path.of(config.getMediaCacheFile()) : null)
+                : null;
+        this.chatMemberCache = config.getChatMemberCacheSize() > 0
+                ? new ChatMemberCache(config.getChatMemberCacheSize(), config.getChatMemberCacheTtl())
+                : null;
+        this.outbox = openOutbox(config.getOutboxFile());
+        this.coalescer = new MessageCoalescer();
+        this.messageScheduler = new MessageScheduler(MessageScheduler.DEFAULT_TICK,
+                config.getScheduleFile() != null ? Path.of(config.getScheduleFile()) : null);
+        this.updateDispatcher = config.getDispatchQueueCapacity() > 0
+                ? new UpdateDispatcher(this::handleUpdate, this.executor, config.getDispatchQueueCapacity(), config.getOverflowPolicy())
+                : null;
+        this.botTag = new String[] {"bot", String.valueOf(config.getBotUsername())};
+        registerGauges();
+    }
+
+    private void registerGauges() {
+        if (updateDispatcher != null) {
+            registerGauge("telegram_update_queue_depth", updateDispatcher::getQueuedCount);
+            registerCounter("telegram_updates_dropped_total", updateDispatcher::getDroppedCount);
         }
+        registerGauge("telegram_retry_cooldown_chats", retryScheduler::getCoolingDownChatCount);
+        registerCounter("telegram_retries_total", retryScheduler::getRetryCount);
+        if (mediaCache != null) {
+            registerGauge("telegram_media_cache_size", mediaCache::size);
+        }
+        if (outbox != null) {
+            registerGauge("telegram_outbox_pending", outbox::getPendingCount);
+        }
+        registerGauge("telegram_scheduled_messages", messageScheduler::getPendingCount);
+        registerCounter("telegram_coalesced_submitted_total", coalescer::getSubmittedCount);
+        registerCounter("telegram_coalesced_sent_total", coalescer::getSentCount);
+        if (chatMemberCache != null) {
+            registerCounter("telegram_chat_member_cache_hits_total", chatMemberCache::getHitCount);
+            registerCounter("telegram_chat_member_cache_misses_total", chatMemberCache::getMissCount);
+        }
+    }
+
+    private void registerGauge(String name, DoubleSupplier value) {
+        metrics.registerGauge(name, value, botTag);
+        registeredMetrics.add(name);
+    }
+
+    private void registerCounter(String name, DoubleSupplier value) {
+        metrics.registerCounter(name, value, botTag);
+        registeredMetrics.add(name);
     }
 
     /**
-     * Fetches the detailed information about a specific member in a chat/group.
-     * This uses the {@link GetChatMember} API method.
-     *
-     * @param chatId The ID of the chat or group.
-     * @param userId The ID of the user to check.
-     * @return The {@link ChatMember} object if successful, or {@code null} if an
-     * exception occurs (logged to error).
+     * Removes the gauges and counters of this bot, so that a registry shared with other bots
+     * neither exports stale values nor keeps the closed bot reachable.
      */
-    public ChatMember getChatMember(Long chatId, Long userId) {
-        try {
-            GetChatMember getChatMember = new GetChatMember();
-            getChatMember.setChatId(chatId.toString());
-            getChatMember.setUserId(userId); // userId should generally be Long, intValue cast is risky
-            return execute(getChatMember);
-        } catch (Exception e) {
-            log.error(e.getMessage());
+    private void unregisterGauges() {
+        for (String name : registeredMetrics) {
+            metrics.unregister(name, botTag);
         }
-        return null;
+        registeredMetrics.clear();
     }
 
     /**
-     * Adds a user's ID to the internal set of members for a specific group chat ID.
+     * Returns the store for callback payloads too large for {@code callback_data}.
      *
-     * @param chatId The ID of the group chat.
-     * @param userId The ID of the user to add.
+     * @return The {@link CallbackStateStore}.
      */
-    private void addMember(Long chatId, Long userId) {
-        groupMembers.computeIfAbsent(chatId, k -> new HashSet<>()).add(userId);
+    public CallbackStateStore getCallbackStateStore() {
+        return callbackStateStore;
     }
 
     /**
-     * Retrieves the set of user IDs currently tracked as members for a given group.
-     * Returns an empty set if the group is not tracked.
+     * Returns the scheduler for delayed and recurring messages to groups.
      *
-     * @param chatId The ID of the group chat.
-     * @return A {@code Set<Long>} of user IDs who are members of the group.
+     * @return The {@link MessageScheduler} of this bot.
      */
-    public Set<Long> getMembers(Long chatId) {
-        return groupMembers.getOrDefault(chatId, Collections.emptySet());
+    public MessageScheduler getMessageScheduler() {
+        return messageScheduler;
     }
 
     /**
-     * Removes a user's ID from the internal set of members for a specific group chat ID.
-     *
-     * @param chatId The ID of the group chat.
-     * @param userId The ID of the user to remove.
+     * Called when the bot session is shutting down. Sends the texts still waiting to be
+     * coalesced, then releases the executor used for concurrent sends, unless it is shared
+     * with other bots, in addition to the resources held by the parent class.
+     * <p>
+     * Only the first call has an effect: a long polling session calls this method when it is
+     * stopped, and {@link travel.letstrip.config.TelegramBotManager#stop()} calls it as well.
      */
-    private void removeMember(Long chatId, Long userId) {
-        Set<Long> members = groupMembers.get(chatId);
-        if (members != null) {
-            members.remove(userId);
+    @Override
+    public void onClosing() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        super.onClosing();
+        unregisterGauges();
+        messageScheduler.close();
+        // Sends the texts still waiting for their coalescing window while the executor accepts work.
+        try {
+            coalescer.close().get(COALESCER_CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Not all coalesced messages were sent before closing: {}", e.getMessage());
+        }
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+        if (outbox != null) {
+            try {
+                outbox.close();
+            } catch (IOException e) {
+                log.error("Failed to close outbound journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static OutboundJournal openOutbox(String file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new OutboundJournal(Path.of(file));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open outbound journal " + file, e);
         }
     }
 
     /**
-     * Sends a text message to all groups defined in the bot configuration.
+     * Returns the router used to pass updates to application handlers.
      *
-     * @param message The text message to be sent.
-     * @return A list of strings indicating the success status for each group.
+     * @return The {@link UpdateRouter} of this bot.
      */
-    public List<String> sendToAllGroups(String message) {
-        List<String> results = new ArrayList<>();
-        for (GroupConfig group : config.getGroups()) {
-            sendMessage(group, message);
-            results.add("✓ " + group.getName() + " - send");
-        }
-        return results;
+    public UpdateRouter getRouter() {
+        return router;
     }
 
-    // --- YANGI METODLAR ---
-
     /**
-     * Helper method to execute a SendMessage object.
+     * Returns the dispatcher that processes received updates, for example to read its
+     * queue depth.
      *
-     * @param sendMessage The configured SendMessage object.
-     * @return {@code true} if successful, {@code false} otherwise.
+     * @return The {@link UpdateDispatcher}, or {@code null} if updates are processed inline
+     * because the configured dispatch queue capacity is {@code 0}.
      */
-    private boolean sendActionMessage(SendMessage sendMessage) {
-        try {
-            execute(sendMessage);
-            return true;
-        } catch (TelegramApiException e) {
-            log.error("Failed to send message to chat ID {}: {}", sendMessage.getChatId(), e.getMessage());
-            return false;
-        }
+    public UpdateDispatcher getUpdateDispatcher() {
+        return updateDispatcher;
     }
 
     /**
-     * Sends a basic text message to a specific Telegram group defined by its configuration.
+     * Returns the scheduler that retries rate-limited and transiently failed requests,
+     * for example to read its counters.
      *
-     * @param group   The {@link GroupConfig} object containing the group ID and topic ID (if applicable).
-     * @param message The text message to send.
-     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     * @return The {@link RetryScheduler} used by this bot.
      */
-    public boolean sendMessage(GroupConfig group, String message) {
-        SendMessage sendMessage = new SendMessage();
-        sendMessage.setChatId(group.getChatId().toString());
-        sendMessage.setText(message);
+    public RetryScheduler getRetryScheduler() {
+        return retryScheduler;
+    }
 
-        if (group.hasTopic()) {
-            sendMessage.setMessageThreadId(group.getTopicId());
-        }
+    /**
+     * Central execution path for every outbound Telegram API request. Each attempt blocks
+     * until the request is allowed by the {@link RateLimiter}; {@code 429} responses and
+     * transient failures are retried by the {@link RetryScheduler}. The outcome and total
+     * latency are reported to the {@link MetricsRegistry}, tagged with the method, the
+     * configured group name (or {@code "other"} for chats that are not configured groups),
+     * and {@code success} or {@code failure}.
+     *
+     * @param method The Telegram API method name, used as a metrics tag.
+     * @param chatId The ID of the target chat, or {@code null} if the request is not bound to a chat.
+     * @param apiCall The API request to perform.
+     * @param <T> The type of the value returned by the Telegram API.
+     * @return The value returned by the Telegram API.
+     * @throws TelegramApiException If the request fails permanently or the thread is interrupted while waiting.
+     */
+    private <T> T call(String method, Long chatId, ApiCall<T> apiCall) throws TelegramApiException {
+        return call(method, chatId, RateLimitScope.CHAT, true, apiCall);
+    }
 
-        return sendActionMessage(sendMessage);
+    /**
+     * Executes a Telegram API request like {@link #call(String, Long, ApiCall)}, counting it
+     * against the given rate limits.
+     *
+     * @param method The Telegram API method name, used as a metrics tag.
+     * @param chatId The target chat, or {@code null} for requests not tied to a chat.
+     * @param scope The {@link RateLimitScope} of the request.
+     * @param apiCall The request to execute.
+     * @param <T> The type of the API result.
+     * @return The API result.
+     * @throws TelegramApiException If the request fails.
+     */
+    private <T> T call(String method, Long chatId, RateLimitScope scope, ApiCall<T> apiCall) throws TelegramApiException {
+        return call(method, chatId, scope, true, apiCall);
     }
 
     /**
-     * Sends a text message to a specific Telegram group, allowing for a custom {@link ParseMode}
-     * (e.g., Markdown or HTML).
+     * Executes a Telegram API request like {@link #call(String, Long, ApiCall)}, optionally
+     * without retrying it. Requests whose payload can only be read once, such as uploads from
+     * a caller-supplied {@link InputStream}, must not be retried.
      *
-     * @param group     The {@link GroupConfig} object containing the group ID and topic ID (if applicable).
-     * @param message   The text message to send.
-     * @param parseMode The {@link ParseMode} to use for formatting the message text.
-     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     * @param method The Telegram API method name, used as a metrics tag.
+     * @param chatId The target chat, or {@code null} for requests not tied to a chat.
+     * @param retryable Whether failed attempts may be retried.
+     * @param apiCall The request to execute.
+     * @param <T> The type of the API result.
+     * @return The API result.
+     * @throws TelegramApiException If the request fails.
      */
-    public boolean sendMessage(GroupConfig group, String message, ParseMode parseMode) {
-        SendMessage sendMessage = new SendMessage();
-        sendMessage.setChatId(group.getChatId().toString());
-        sendMessage.setText(message);
-        sendMessage.setParseMode(parseMode.toString());
+    private <T> T call(String method, Long chatId, boolean retryable, ApiCall<T> apiCall) throws TelegramApiException {
+        return call(method, chatId, RateLimitScope.CHAT, retryable, apiCall);
+    }
 
-        if (group.hasTopic()) {
-            sendMessage.setMessageThreadId(group.getTopicId());
+    /**
+     * Executes a Telegram API request; the overloads above fill in the defaults.
+     *
+     * @param method The Telegram API method name, used as a metrics tag.
+     * @param chatId The target chat, or {@code null} for requests not tied to a chat.
+     * @param scope The {@link RateLimitScope} of the request.
+     * @param retryable Whether failed attempts may be retried.
+     * @param apiCall The request to execute.
+     * @param <T> The type of the API result.
+     * @return The API result.
+     * @throws TelegramApiException If the request fails.
+     */
+    private <T> T call(String method, Long chatId, RateLimitScope scope, boolean retryable,
+                       ApiCall<T> apiCall) throws TelegramApiException {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            ApiCall<T> limited = () -> {
+                try {
+                    if (scope == RateLimitScope.GLOBAL) {
+                        rateLimiter.acquireGlobal();
+                    } else {
+                        rateLimiter.acquire(chatId);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TelegramApiException("Interrupted while waiting for rate limit", e);
+                }
+                return apiCall.call();
+            };
+            T result = retryable ? retryScheduler.execute(chatId, limited) : limited.call();
+            outcome = "success";
+            return result;
+        } finally {
+            String chat = chatTag(chatId);
+            String bot = String.valueOf(config.getBotUsername());
+            metrics.incrementCounter("telegram_requests_total", "bot", bot, "method", method, "chat", chat, "outcome", outcome);
+            metrics.recordTime("telegram_request_duration_seconds", System.nanoTime() - start,
+                    "bot", bot, "method", method, "chat", chat, "outcome", outcome);
         }
+    }
 
-        return sendActionMessage(sendMessage);
+    /**
+     * Resolves the metrics tag for a chat. Only configured groups get their own tag so that
+     * the number of time series stays bounded no matter how many private chats write to the bot.
+     */
+    private String chatTag(Long chatId) {
+        GroupConfig group = config.getGroupById(chatId);
+        return group != null && group.getName() != null ? group.getName() : "other";
     }
 
     /**
-     * Sends a message in reply to a specific existing message in a chat.
+     * Asynchronous counterpart of {@link #call(String, Long, ApiCall)}. The request, including any
+     * rate-limit wait, runs on a virtual thread so the caller is never blocked.
      *
-     * @param chatId The ID of the chat where the message should be sent.
-     * @param replyToMessageId The ID of the message to which the bot is replying.
-     * @param text The text message content.
-     * @param parseMode The {@link ParseMode} for formatting.
-     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     * @param method The Telegram API method name, used as a metrics tag.
+     * @param chatId The ID of the target chat, or {@code null} if the request is not bound to a chat.
+     * @param apiCall The API request to perform.
+     * @param <T> The type of the value returned by the Telegram API.
+     * @return A future completed with the API result, or exceptionally with the
+     * {@link TelegramApiException} that caused the failure.
      */
-    public boolean sendReplyMessage(Long chatId, Integer replyToMessageId, String text, ParseMode parseMode) {
-        SendMessage sendMessage = new SendMessage();
-        sendMessage.setChatId(chatId.toString());
-        sendMessage.setText(text);
-        sendMessage.setReplyToMessageId(replyToMessageId);
-
-        if (parseMode != null) {
-            sendMessage.setParseMode(parseMode.toString());
-        }
-
-        return sendActionMessage(sendMessage);
+    private <T> CompletableFuture<T> callAsync(String method, Long chatId, ApiCall<T> apiCall) {
+        return callAsync(method, chatId, RateLimitScope.CHAT, apiCall);
     }
 
     /**
-     * Sends a text message to a group looked up by its registered name in the configuration.
+     * Asynchronous counterpart of {@link #call(String, Long, RateLimitScope, ApiCall)}.
      *
-     * @param groupName The name of the group as defined in the configuration.
-     * @param message   The text message to send.
-     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
-     * @throws IllegalArgumentException if the group name is not found in the configuration.
+     * @param method The Telegram API method name, used as a metrics tag.
+     * @param chatId The target chat, or {@code null} for requests not tied to a chat.
+     * @param scope The {@link RateLimitScope} of the request.
+     * @param apiCall The API request to perform.
+     * @param <T> The type of the API result.
+     * @return A future completed with the API result.
      */
-    public boolean sendMessageByGroupName(String groupName, String message) {
-        GroupConfig group = config.getGroupByName(groupName);
-        if (group == null) {
-            throw new IllegalArgumentException("Group not found : " + groupName);
-        }
-        return sendMessage(group, message);
+    private <T> CompletableFuture<T> callAsync(String method, Long chatId, RateLimitScope scope, ApiCall<T> apiCall) {
+        return async(() -> call(method, chatId, scope, apiCall));
     }
 
     /**
-     * Sends a text message to a group looked up by its ID in the configuration.
+     * Runs a task that may perform several API requests on a virtual thread.
      *
-     * @param groupId The ID of the group as defined in the configuration.
-     * @param message The text message to send.
-     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
-     * @throws IllegalArgumentException if the group ID is not found in the configuration.
+     * @param task The task to run.
+     * @param <T> The type of the task result.
+     * @return A future completed with the task result, or exceptionally with the
+     * {@link TelegramApiException} that caused the failure.
      */
-    public boolean sendMessageByGroupId(Long groupId, String message) {
-        GroupConfig group = config.getGroupById(groupId);
-        if (group == null) {
-            throw new IllegalArgumentException("Group not found by id : " + groupId);
-        }
-        return sendMessage(group, message);
+    private <T> CompletableFuture<T> async(ApiCall<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (TelegramApiException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
     }
 
     /**
-     * Sends a photo file to a specific Telegram group with an optional caption.
+     * Sends a local media file, reusing the {@code file_id} of an earlier upload of the same
+     * file when the {@link MediaCache} has one. When several threads send the same uncached
+     * file at once, only one of them uploads it and the others reuse its {@code file_id}.
+     * A cached {@code file_id} that Telegram rejects is dropped and the file is uploaded again.
      *
-     * @param group   The {@link GroupConfig} object for the target group.
-     * @param photo   The {@link File} object representing the photo to send.
-     * @param caption An optional caption for the photo (can be {@code null} or empty).
-     * @return {@code true} if the photo was sent successfully, {@code false} otherwise.
+     * @param method The Telegram API method name, used as a metrics tag.
+     * @param mediaType The {@link MediaCache} media type.
+     * @param group The target group.
+     * @param file The local file to send.
+     * @param request Creates the API request for the given media reference.
+     * @param fileIdOf Extracts the {@code file_id} from the sent message.
+     * @return The sent {@link Message}.
+     * @throws TelegramApiException If the send fails.
      */
-    public boolean sendPhoto(GroupConfig group, File photo, String caption) {
-        try {
-            SendPhoto sendPhoto = new SendPhoto();
-            sendPhoto.setChatId(group.getChatId().toString());
-            sendPhoto.setPhoto(new InputFile(photo));
+    private Message sendMedia(String method, String mediaType, GroupConfig group, File file,
+                              Function<InputFile, ApiCall<Message>> request,
+                              Function<Message, String> fileIdOf) throws TelegramApiException {
+        Long chatId = group.getChatId();
+        String key = mediaCache != null ? MediaCache.keyOf(mediaType, file) : null;
+        if (key == null) {
+            return call(method, chatId, request.apply(new InputFile(file)));
+        }
 
-            if (caption != null && !caption.isEmpty()) {
-                sendPhoto.setCaption(caption);
+        String fileId = mediaCache.get(key);
+        if (fileId == null) {
+            CompletableFuture<String> upload = mediaCache.claimUpload(key);
+            if (upload == null) {
+                String uploadedId = null;
+                try {
+                    Message message = call(method, chatId, request.apply(new InputFile(file)));
+                    uploadedId = fileIdOf.apply(message);
+                    return message;
+                } finally {
+                    mediaCache.completeUpload(key, uploadedId);
+                }
             }
-
-            if (group.hasTopic()) {
-                sendPhoto.setMessageThreadId(group.getTopicId());
+            fileId = upload.join();
+            if (fileId == null) {
+                return call(method, chatId, request.apply(new InputFile(file)));
             }
-
-            execute(sendPhoto);
-        } catch (TelegramApiException e) {
-            log.error(e.getMessage());
-            return false;
         }
 
-        return true;
+        try {
+            return call(method, chatId, request.apply(new InputFile(fileId)));
+        } catch (TelegramApiRequestException e) {
+            if (!isFileIdRejected(e)) {
+                throw e;
+            }
+            log.warn("Cached file_id for {} was rejected, uploading again: {}", file, e.getMessage());
+            mediaCache.invalidate(key);
+            Message message = call(method, chatId, request.apply(new InputFile(file)));
+            String uploadedId = fileIdOf.apply(message);
+            if (uploadedId != null) {
+                mediaCache.put(key, uploadedId);
+            }
+            return message;
+        }
     }
 
     /**
-     * Sends a photo file to a group looked up by its ID in the configuration.
+     * Sends a text message, split into several messages with {@link MessageSplitter} if it is
+     * longer than Telegram allows. The chunks are sent one after another; only the first one
+     * replies to {@code replyToMessageId} and only the last one carries the reply markup.
      *
-     * @param groupId The ID of the group as defined in the configuration.
-     * @param photo The {@link File} object representing the photo to send.
-     * @param caption An optional caption for the photo.
-     * @return {@code true} if the photo was sent successfully, {@code false} otherwise.
+     * @param sendMessage The message to send.
+     * @return The last {@link Message} sent.
+     * @throws TelegramApiException If sending a chunk fails; later chunks are not sent.
      */
-    public boolean sendPhotoByGroupId(Long groupId, File photo, String caption) {
-        GroupConfig group = config.getGroupById(groupId);
-        if (group == null) {
-            throw new IllegalArgumentException("Group not found by id : " + groupId);
+    private Message sendText(SendMessage sendMessage) throws TelegramApiException {
+        Long chatId = chatIdOf(sendMessage.getChatId());
+        if (sendMessage.getText() == null || sendMessage.getText().length() <= MessageSplitter.MAX_MESSAGE_LENGTH) {
+            return call("sendMessage", chatId, () -> execute(sendMessage));
         }
-        return sendPhoto(group, photo, caption);
+        MessageSplitter splitter = new MessageSplitter(sendMessage.getText(), sendMessage.getParseMode(), MessageSplitter.MAX_MESSAGE_LENGTH);
+        Message message = null;
+        for (boolean first = true; splitter.hasNext(); first = false) {
+            SendMessage chunk = chunkOf(sendMessage, splitter.next(), first, !splitter.hasNext());
+            message = call("sendMessage", chatId, () -> execute(chunk));
+        }
+        return message;
     }
 
     /**
-     * Sends a document file (e.g., a PDF, text file, etc.) to a specific Telegram group
-     * with an optional caption.
+     * Asynchronously sends a text message like {@link #sendText(SendMessage)}. The chunks are
+     * split up front while the first one is already being sent, and each is sent once the
+     * previous one was accepted, so they arrive in order.
      *
-     * @param group    The {@link GroupConfig} object for the target group.
-     * @param document The {@link File} object representing the document to send.
-     * @param caption  An optional caption for the document (can be {@code null} or empty).
-     * @return {@code true} if the document was sent successfully, {@code false} otherwise.
+     * @param sendMessage The message to send.
+     * @return A future completed with the last {@link Message} sent.
      */
-    public boolean sendDocument(GroupConfig group, File document, String caption) {
-        try {
-            SendDocument sendDocument = new SendDocument();
-            sendDocument.setChatId(group.getChatId().toString());
-            sendDocument.setDocument(new InputFile(document));
-
-            if (caption != null && !caption.isEmpty()) {
-                sendDocument.setCaption(caption);
-            }
-
-            if (group.hasTopic()) {
-                sendDocument.setMessageThreadId(group.getTopicId());
-            }
-
-            execute(sendDocument);
-        } catch (TelegramApiException e) {
-            log.error(e.getMessage());
-            return false;
+    private CompletableFuture<Message> sendTextAsync(SendMessage sendMessage) {
+        Long chatId = chatIdOf(sendMessage.getChatId());
+        if (sendMessage.getText() == null || sendMessage.getText().length() <= MessageSplitter.MAX_MESSAGE_LENGTH) {
+            return callAsync("sendMessage", chatId, () -> execute(sendMessage));
         }
-
-        return true;
+        MessageSplitter splitter = new MessageSplitter(sendMessage.getText(), sendMessage.getParseMode(), MessageSplitter.MAX_MESSAGE_LENGTH);
+        SendMessage firstChunk = chunkOf(sendMessage, splitter.next(), true, !splitter.hasNext());
+        CompletableFuture<Message> result = callAsync("sendMessage", chatId, () -> execute(firstChunk));
+        while (splitter.hasNext()) {
+            SendMessage chunk = chunkOf(sendMessage, splitter.next(), false, !splitter.hasNext());
+            result = result.thenCompose(previous -> callAsync("sendMessage", chatId, () -> execute(chunk)));
+        }
+        return result;
     }
 
-    // --- CHAT ADMINISTRATION METHODS ---
+    private static SendMessage chunkOf(SendMessage source, String text, boolean first, boolean last) {
+        SendMessage chunk = new SendMessage();
+        chunk.setChatId(source.getChatId());
+        chunk.setMessageThreadId(source.getMessageThreadId());
+        chunk.setText(text);
+        chunk.setParseMode(source.getParseMode());
+        chunk.setDisableWebPagePreview(source.getDisableWebPagePreview());
+        chunk.setDisableNotification(source.getDisableNotification());
+        chunk.setProtectContent(source.getProtectContent());
+        if (first) {
+            chunk.setReplyToMessageId(source.getReplyToMessageId());
+            chunk.setAllowSendingWithoutReply(source.getAllowSendingWithoutReply());
+        }
+        if (last) {
+            chunk.setReplyMarkup(source.getReplyMarkup());
+        }
+        return chunk;
+    }
 
     /**
-     * Kicks a member from a chat (equivalent to 'unban' in Telegram API, allowing the user to rejoin).
-     * Note: This method requires the bot to be an administrator in the chat with the
-     * 'Restrict and ban users' permission.
+     * Sends media with a caption. A caption longer than Telegram allows is split with
+     * {@link MessageSplitter}: the media carries the first chunk, and the rest follows in text
+     * messages sent once the media was accepted.
      *
-     * @param chatId The ID of the chat/group.
-     * @param userId The ID of the user to kick.
-     * @return {@code true} if the member was successfully kicked, {@code false} otherwise.
+     * @param group The target group.
+     * @param caption The caption, or {@code null} for none.
+     * @param send Sends the media with the caption it is given.
+     * @return The {@link Message} of the media.
+     * @throws TelegramApiException If the media or a follow-up message cannot be sent.
      */
-    public boolean kickChatMember(Long chatId, Long userId) {
-        BanChatMember kickChatMember = new BanChatMember();
-        kickChatMember.setChatId(chatId.toString());
-        kickChatMember.setUserId(userId);
+    private Message sendCaptioned(GroupConfig group, String caption, Function<String, ApiCall<Message>> send)
+            throws TelegramApiException {
+        if (caption == null || caption.length() <= MessageSplitter.MAX_CAPTION_LENGTH) {
+            return send.apply(caption).call();
+        }
+        MessageSplitter splitter = new MessageSplitter(caption, null, MessageSplitter.MAX_MESSAGE_LENGTH);
+        Message message = send.apply(splitter.next(MessageSplitter.MAX_CAPTION_LENGTH)).call();
+        while (splitter.hasNext()) {
+            SendMessage rest = createMessage(group, splitter.next());
+            call("sendMessage", group.getChatId(), () -> execute(rest));
+        }
+        return message;
+    }
+
+    private static String photoFileId(Message message) {
+        if (message == null || message.getPhoto() == null || message.getPhoto().isEmpty()) {
+            return null;
+        }
+        // Telegram returns every generated size; the last one is the original resolution.
+        return message.getPhoto().get(message.getPhoto().size() - 1).getFileId();
+    }
 
-        // Setting untilDate to current time + 1 second effectively kicks them instantly,
-        // allowing them to rejoin if the chat is public.
-        // For a true ban, remove the untilDate setting.
-        kickChatMember.setUntilDate((int) (System.currentTimeMillis() / 1000) + 1);
+    private static String documentFileId(Message message) {
+        return message != null && message.getDocument() != null ? message.getDocument().getFileId() : null;
+    }
 
-        try {
-            execute(kickChatMember);
-            return true;
-        } catch (TelegramApiException e) {
-            log.error("Failed to kick user {} from chat {}: {}", userId, chatId, e.getMessage());
+    /**
+     * Tells whether Telegram rejected a request because a {@code file_id} it references is no
+     * longer valid, as opposed to any other bad request (a caption that is too long, a chat
+     * that was not found, ...) that would fail again after uploading the file.
+     */
+    private static boolean isFileIdRejected(TelegramApiRequestException e) {
+        if (e.getErrorCode() == null || e.getErrorCode() != 400 || e.getApiResponse() == null) {
+            return false;
+        }
+        String description = e.getApiResponse().toLowerCase(Locale.ROOT);
+        return description.contains("file identifier")
+                || description.contains("file reference")
+                || description.contains("file_reference");
+    }
+
+    private Message sendPhotoMessage(GroupConfig group, File photo, String caption) throws TelegramApiException {
+        return sendCaptioned(group, caption, fitted -> () -> sendMedia("sendPhoto", MediaCache.PHOTO, group, photo,
+                media -> () -> execute(createPhoto(group, media, fitted)),
+                TelegramBotService::photoFileId));
+    }
+
+    private Message sendDocumentMessage(GroupConfig group, File document, String caption) throws TelegramApiException {
+        return sendCaptioned(group, caption, fitted -> () -> sendMedia("sendDocument", MediaCache.DOCUMENT, group, document,
+                media -> () -> execute(createDocument(group, media, fitted)),
+                TelegramBotService::documentFileId));
+    }
+
+    private Message sendPhotoMessage(GroupConfig group, InputStream photo, String fileName, String caption) throws TelegramApiException {
+        return sendCaptioned(group, caption, fitted -> () -> call("sendPhoto", group.getChatId(), false,
+                () -> execute(createPhoto(group, new InputFile(photo, fileName), fitted))));
+    }
+
+    private Message sendDocumentMessage(GroupConfig group, InputStream document, String fileName, String caption) throws TelegramApiException {
+        return sendCaptioned(group, caption, fitted -> () -> call("sendDocument", group.getChatId(), false,
+                () -> execute(createDocument(group, new InputFile(document, fileName), fitted))));
+    }
+
+    /**
+     * Sends an album, split into as few {@code sendMediaGroup} requests as Telegram allows:
+     * at most {@value #MAX_ALBUM_SIZE} items each, and never mixing photos with documents.
+     * A run of a single item is sent on its own, as albums need at least two.
+     */
+    private List<Message> sendAlbumMessages(GroupConfig group, List<AlbumItem> items) throws TelegramApiException {
+        List<Message> sent = new ArrayList<>(items.size());
+        int start = 0;
+        while (start < items.size()) {
+            boolean photo = items.get(start).isPhoto();
+            int end = start + 1;
+            while (end < items.size() && end - start < MAX_ALBUM_SIZE && items.get(end).isPhoto() == photo) {
+                end++;
+            }
+            List<AlbumItem> chunk = items.subList(start, end);
+            if (chunk.size() == 1) {
+                sent.add(sendAlbumItem(group, chunk.get(0)));
+            } else {
+                sent.addAll(sendMediaGroup(group, chunk));
+            }
+            start = end;
+        }
+        return sent;
+    }
+
+    private Message sendAlbumItem(GroupConfig group, AlbumItem item) throws TelegramApiException {
+        if (item.getFile() != null) {
+            return item.isPhoto()
+                    ? sendPhotoMessage(group, item.getFile(), item.getCaption())
+                    : sendDocumentMessage(group, item.getFile(), item.getCaption());
+        }
+        InputFile media = new InputFile(item.getFileId());
+        return item.isPhoto()
+                ? sendCaptioned(group, item.getCaption(), fitted -> () -> call("sendPhoto", group.getChatId(),
+                        () -> execute(createPhoto(group, media, fitted))))
+                : sendCaptioned(group, item.getCaption(), fitted -> () -> call("sendDocument", group.getChatId(),
+                        () -> execute(createDocument(group, media, fitted))));
+    }
+
+    /**
+     * Sends one {@code sendMediaGroup} request. Local files with a cached {@code file_id} are
+     * sent by reference and the others are uploaded and cached. If Telegram rejects one of the
+     * cached IDs, they are dropped and every file is uploaded again. Captions longer than
+     * Telegram allows are cut like in {@link #sendCaptioned}, and the rest of them follows the
+     * album in text messages.
+     */
+    private List<Message> sendMediaGroup(GroupConfig group, List<AlbumItem> chunk) throws TelegramApiException {
+        String[] keys = new String[chunk.size()];
+        String[] cachedIds = new String[chunk.size()];
+        String[] captions = new String[chunk.size()];
+        List<String> captionRest = new ArrayList<>();
+        boolean usedCache = false;
+        for (int i = 0; i < chunk.size(); i++) {
+            AlbumItem item = chunk.get(i);
+            captions[i] = item.getCaption();
+            if (captions[i] != null && captions[i].length() > MessageSplitter.MAX_CAPTION_LENGTH) {
+                MessageSplitter splitter = new MessageSplitter(captions[i], null, MessageSplitter.MAX_MESSAGE_LENGTH);
+                captions[i] = splitter.next(MessageSplitter.MAX_CAPTION_LENGTH);
+                splitter.forEachRemaining(captionRest::add);
+            }
+            if (mediaCache != null && item.getFile() != null) {
+                keys[i] = MediaCache.keyOf(item.isPhoto() ? MediaCache.PHOTO : MediaCache.DOCUMENT, item.getFile());
+                cachedIds[i] = keys[i] != null ? mediaCache.get(keys[i]) : null;
+                usedCache |= cachedIds[i] != null;
+            }
+        }
+
+        List<Message> messages;
+        try {
+            SendMediaGroup request = createMediaGroup(group, chunk, cachedIds, captions);
+            messages = call("sendMediaGroup", group.getChatId(), () -> execute(request));
+        } catch (TelegramApiRequestException e) {
+            if (!usedCache || !isFileIdRejected(e)) {
+                throw e;
+            }
+            log.warn("Album with cached file_ids was rejected, uploading again: {}", e.getMessage());
+            for (int i = 0; i < keys.length; i++) {
+                if (cachedIds[i] != null) {
+                    mediaCache.invalidate(keys[i]);
+                }
+            }
+            SendMediaGroup request = createMediaGroup(group, chunk, new String[chunk.size()], captions);
+            messages = call("sendMediaGroup", group.getChatId(), () -> execute(request));
+        }
+
+        for (int i = 0; i < keys.length && i < messages.size(); i++) {
+            if (keys[i] != null) {
+                String fileId = chunk.get(i).isPhoto() ? photoFileId(messages.get(i)) : documentFileId(messages.get(i));
+                if (fileId != null && !fileId.equals(cachedIds[i])) {
+                    mediaCache.put(keys[i], fileId);
+                }
+            }
+        }
+        for (String text : captionRest) {
+            SendMessage rest = createMessage(group, text);
+            call("sendMessage", group.getChatId(), () -> execute(rest));
+        }
+        return messages;
+    }
+
+    private SendMediaGroup createMediaGroup(GroupConfig group, List<AlbumItem> chunk, String[] cachedIds, String[] captions) {
+        List<InputMedia> medias = new ArrayList<>(chunk.size());
+        Set<String> attachNames = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            AlbumItem item = chunk.get(i);
+            InputMedia media = item.isPhoto() ? new InputMediaPhoto() : new InputMediaDocument();
+            if (cachedIds[i] != null) {
+                media.setMedia(cachedIds[i]);
+            } else if (item.getFile() != null) {
+                // Each upload is a multipart part named after the file, so names must be unique.
+                String name = item.getFile().getName();
+                if (!attachNames.add(name)) {
+                    name = i + "_" + name;
+                    attachNames.add(name);
+                }
+                media.setMedia(item.getFile(), name);
+            } else {
+                media.setMedia(item.getFileId());
+            }
+            if (captions[i] != null && !captions[i].isEmpty()) {
+                media.setCaption(captions[i]);
+            }
+            medias.add(media);
+        }
+
+        SendMediaGroup sendMediaGroup = new SendMediaGroup();
+        sendMediaGroup.setChatId(group.getChatId().toString());
+        sendMediaGroup.setMedias(medias);
+
+        if (group.hasTopic()) {
+            sendMediaGroup.setMessageThreadId(group.getTopicId());
+        }
+        return sendMediaGroup;
+    }
+
+    // Every attempt streams from a fresh view of the buffer, so these uploads can be retried.
+    private Message sendPhotoMessage(GroupConfig group, ByteBuffer photo, String fileName, String caption) throws TelegramApiException {
+        return sendCaptioned(group, caption, fitted -> () -> call("sendPhoto", group.getChatId(),
+                () -> execute(createPhoto(group, new InputFile(new ByteBufferInputStream(photo), fileName), fitted))));
+    }
+
+    private Message sendDocumentMessage(GroupConfig group, ByteBuffer document, String fileName, String caption) throws TelegramApiException {
+        return sendCaptioned(group, caption, fitted -> () -> call("sendDocument", group.getChatId(),
+                () -> execute(createDocument(group, new InputFile(new ByteBufferInputStream(document), fileName), fitted))));
+    }
+
+    /**
+     * Retrieves the bot's username as defined in the configuration.
+     *
+     * @return The bot's username (e.g., "MyAwesomeBot").
+     */
+    @Override
+    public String getBotUsername() {
+        return config.getBotUsername();
+    }
+
+    /**
+     * Retrieves the bot's token as defined in the configuration.
+     *
+     * @return The bot's authentication token.
+     */
+    @Override
+    public String getBotToken() {
+        return config.getBotToken();
+    }
+
+    /**
+     * This method is called when an update is received from the Telegram API.
+     * The update is handed to the {@link UpdateDispatcher}, which processes updates of
+     * different chats in parallel while keeping the order within each chat.
+     * <p>
+     * An update the dispatcher rejects is logged and counted as dropped rather than thrown,
+     * since long polling delivers updates in batches and an exception would lose the rest
+     * of the batch.
+     *
+     * @param update The incoming update object from Telegram.
+     */
+    @Override
+    public void onUpdateReceived(Update update) {
+        try {
+            dispatchUpdate(update);
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped update {}: {}", update.getUpdateId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Hands an update to the {@link UpdateDispatcher}, or processes it inline when the
+     * dispatch queue is disabled. Unlike {@link #onUpdateReceived(Update)}, a rejection is
+     * thrown to the caller, e.g. so that a webhook can ask Telegram to redeliver the update.
+     *
+     * @param update The incoming update object from Telegram.
+     * @throws RejectedExecutionException If the dispatch queue is full and the configured
+     * overflow policy is {@link travel.letstrip.enums.OverflowPolicy#REJECT}, or the executor
+     * no longer accepts work.
+     */
+    public void dispatchUpdate(Update update) {
+        if (updateDispatcher != null) {
+            updateDispatcher.dispatch(update);
+        } else {
+            handleUpdate(update);
+        }
+    }
+
+    /**
+     * Processes a single update. It logs incoming text messages (at debug level, sampled
+     * according to {@link BotConfig#getUpdateLogSampleRate()}) as well as new chat members
+     * and members leaving the chat (at info level), keeps the tracked group membership up
+     * to date, and then passes the update to the handlers registered in the {@link UpdateRouter}.
+     *
+     * @param update The incoming update object from Telegram.
+     */
+    private void handleUpdate(Update update) {
+        long start = System.nanoTime();
+        String type = UpdateType.of(update).name();
+        String outcome = "failure";
+        try {
+            processUpdate(update);
+            outcome = "success";
+        } finally {
+            String bot = String.valueOf(config.getBotUsername());
+            metrics.incrementCounter("telegram_updates_total", "bot", bot, "type", type, "outcome", outcome);
+            metrics.recordTime("telegram_update_duration_seconds", System.nanoTime() - start, "bot", bot, "type", type, "outcome", outcome);
+        }
+    }
+
+    private void processUpdate(Update update) {
+        if (update.hasMessage() && update.getMessage().hasText()
+                && log.isDebugEnabled() && updateLogSampler.sample()) {
+            log.debug("Message received from chat {}: {}", update.getMessage().getChatId(), update.getMessage().getText());
+        }
+        if (update.hasMessage()) {
+            Long chatId = update.getMessage().getChatId();
+            if (update.getMessage().getNewChatMembers() != null) {
+                update.getMessage().getNewChatMembers().forEach(user -> {
+                    if (log.isInfoEnabled()) {
+                        log.info("New member in chat {}: {} ({})", chatId, user.getUserName(), user.getId());
+                    }
+                    addMember(chatId, user.getId());
+                    invalidateChatMember(chatId, user.getId());
+                });
+            }
+
+            if (update.getMessage().getLeftChatMember() != null) {
+                User leftMember = update.getMessage().getLeftChatMember();
+                if (log.isInfoEnabled()) {
+                    log.info("Member left chat {}: {} ({})", chatId, leftMember.getUserName(), leftMember.getId());
+                }
+                if (isSelf(leftMember)) {
+                    groupMembers.removeChat(chatId);
+                } else {
+                    removeMember(chatId, leftMember.getId());
+                }
+                invalidateChatMember(chatId, leftMember.getId());
+            }
+        }
+        if (update.hasChatMember()) {
+            trackMemberStatus(update.getChatMember());
+        }
+        if (update.hasMyChatMember()) {
+            trackOwnStatus(update.getMyChatMember());
+        }
+        router.route(update, this);
+    }
+
+    /**
+     * Updates the tracked membership from a {@code chat_member} update, which Telegram sends
+     * for status changes such as joins via invite link, kicks, and bans.
+     *
+     * @param memberUpdate The chat member update.
+     */
+    private void trackMemberStatus(ChatMemberUpdated memberUpdate) {
+        ChatMember member = memberUpdate.getNewChatMember();
+        if (member == null || member.getUser() == null) {
+            return;
+        }
+        Long chatId = memberUpdate.getChat().getId();
+        if (chatMemberCache != null) {
+            chatMemberCache.put(chatId, member);
+        }
+        String status = member.getStatus();
+        if ("left".equals(status) || "kicked".equals(status)) {
+            removeMember(chatId, member.getUser().getId());
+        } else {
+            addMember(chatId, member.getUser().getId());
+        }
+    }
+
+    /**
+     * Stops tracking the members of a chat once a {@code my_chat_member} update reports that
+     * the bot itself left it or was removed from it, since no further member updates will arrive.
+     *
+     * @param memberUpdate The chat member update about the bot.
+     */
+    private void trackOwnStatus(ChatMemberUpdated memberUpdate) {
+        ChatMember member = memberUpdate.getNewChatMember();
+        if (member == null) {
+            return;
+        }
+        String status = member.getStatus();
+        if ("left".equals(status) || "kicked".equals(status)) {
+            Long chatId = memberUpdate.getChat().getId();
+            log.info("Bot removed from chat {} ({})", chatId, status);
+            groupMembers.removeChat(chatId);
+        }
+    }
+
+    /**
+     * Checks whether a user is this bot, whose user ID is the part of its token before the colon.
+     */
+    private boolean isSelf(User user) {
+        String token = config.getBotToken();
+        int colon = token == null ? -1 : token.indexOf(':');
+        return colon > 0 && token.substring(0, colon).equals(String.valueOf(user.getId()));
+    }
+
+    /**
+     * Fetches the detailed information about a specific member in a chat/group.
+     * This uses the {@link GetChatMember} API method.
+     * <p>
+     * Results are cached for {@link BotConfig#getChatMemberCacheTtl()}, and concurrent
+     * lookups of the same member share one request. Join, leave, and {@code chat_member}
+     * updates refresh the cached entry.
+     *
+     * @param chatId The ID of the chat or group.
+     * @param userId The ID of the user to check.
+     * @return The {@link ChatMember} object if successful, or {@code null} if an
+     * exception occurs (logged to error).
+     */
+    public ChatMember getChatMember(Long chatId, Long userId) {
+        try {
+            GetChatMember getChatMember = new GetChatMember();
+            getChatMember.setChatId(chatId.toString());
+            getChatMember.setUserId(userId); // userId should generally be Long, intValue cast is risky
+            if (chatMemberCache == null) {
+                return call("getChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(getChatMember));
+            }
+            return chatMemberCache.get(chatId, userId,
+                    () -> call("getChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(getChatMember)));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return null;
+    }
+
+    private void invalidateChatMember(Long chatId, Long userId) {
+        if (chatMemberCache != null) {
+            chatMemberCache.invalidate(chatId, userId);
+        }
+    }
+
+    /**
+     * Adds a user's ID to the internal set of members for a specific group chat ID.
+     *
+     * @param chatId The ID of the group chat.
+     * @param userId The ID of the user to add.
+     */
+    private void addMember(Long chatId, Long userId) {
+        groupMembers.add(chatId, userId);
+    }
+
+    /**
+     * Retrieves the set of user IDs currently tracked as members for a given group.
+     * Returns an empty set if the group is not tracked.
+     * <p>
+     * The returned set is an unmodifiable snapshot; use {@link #isMember(Long, Long)} or
+     * {@link #getMemberCount(Long)} for cheap checks on large groups.
+     *
+     * @param chatId The ID of the group chat.
+     * @return A {@code Set<Long>} of user IDs who are members of the group.
+     */
+    public Set<Long> getMembers(Long chatId) {
+        if (chatId == null) {
+            return Collections.emptySet();
+        }
+        return groupMembers.snapshot(chatId);
+    }
+
+    /**
+     * Checks whether a user is currently tracked as a member of a group.
+     *
+     * @param chatId The ID of the group chat.
+     * @param userId The ID of the user.
+     * @return {@code true} if the user is a tracked member of the group.
+     */
+    public boolean isMember(Long chatId, Long userId) {
+        return chatId != null && userId != null && groupMembers.contains(chatId, userId);
+    }
+
+    /**
+     * Returns the number of users currently tracked as members of a group.
+     *
+     * @param chatId The ID of the group chat.
+     * @return The number of tracked members, or {@code 0} if the group is not tracked.
+     */
+    public int getMemberCount(Long chatId) {
+        return chatId == null ? 0 : groupMembers.size(chatId);
+    }
+
+    /**
+     * Removes a user's ID from the internal set of members for a specific group chat ID.
+     *
+     * @param chatId The ID of the group chat.
+     * @param userId The ID of the user to remove.
+     */
+    private void removeMember(Long chatId, Long userId) {
+        groupMembers.remove(chatId, userId);
+    }
+
+    /**
+     * Sends a text message to all groups defined in the bot configuration.
+     *
+     * @param message The text message to be sent.
+     * @return A list of strings indicating the success or failure status for each group.
+     * @see #broadcast(String)
+     */
+    public List<String> sendToAllGroups(String message) {
+        List<String> results = new ArrayList<>();
+        for (SendResult result : broadcast(message)) {
+            results.add(result.toString());
+        }
+        return results;
+    }
+
+    /**
+     * Sends a text message to all configured groups concurrently.
+     * <p>
+     * Each group is handled on its own virtual thread, and every send passes through the
+     * {@link RateLimiter}, so the total duration is bounded by Telegram's rate limits
+     * rather than by the round-trip time multiplied by the number of groups.
+     *
+     * @param message The text message to be sent.
+     * @return A list of {@link SendResult} objects, one per group, in configuration order.
+     */
+    public List<SendResult> broadcast(String message) {
+        List<GroupConfig> groups = new ArrayList<>(config.getGroups());
+        List<OutboundJournal.Entry> entries = journal(groups, message);
+        List<Callable<SendResult>> tasks = new ArrayList<>(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            GroupConfig group = groups.get(i);
+            OutboundJournal.Entry entry = entries != null ? entries.get(i) : null;
+            tasks.add(() -> sendToGroup(group, message, entry));
+        }
+
+        List<SendResult> results = new ArrayList<>(groups.size());
+        try {
+            List<Future<SendResult>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(resultOf(futures.get(i), groups.get(i)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Broadcast interrupted after {} of {} groups", results.size(), groups.size());
+        }
+        return results;
+    }
+
+    /**
+     * Records a broadcast in the outbound journal, if one is configured, so that groups not
+     * reached before a crash still receive it after the restart.
+     *
+     * @return The journal entries in the order of {@code groups}, or {@code null} if the
+     * broadcast is not journaled.
+     */
+    private List<OutboundJournal.Entry> journal(List<GroupConfig> groups, String message) {
+        if (outbox == null) {
+            return null;
+        }
+        try {
+            return outbox.enqueue(groups, null, message);
+        } catch (IOException e) {
+            log.error("Failed to journal broadcast, sending without durability: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sends a journaled message and acknowledges it on success. Messages Telegram rejects
+     * permanently are acknowledged as well, so they are not replayed forever.
+     *
+     * @param entry The journal entry.
+     * @return The sent {@link Message}.
+     * @throws TelegramApiException If the send fails.
+     */
+    private Message deliver(OutboundJournal.Entry entry) throws TelegramApiException {
+        SendMessage sendMessage = new SendMessage();
+        sendMessage.setChatId(Long.toString(entry.chatId()));
+        sendMessage.setText(entry.text());
+        if (entry.topicId() != null) {
+            sendMessage.setMessageThreadId(entry.topicId());
+        }
+        if (entry.parseMode() != null) {
+            sendMessage.setParseMode(entry.parseMode());
+        }
+
+        try {
+            Message message = sendText(sendMessage);
+            acknowledge(entry);
+            return message;
+        } catch (TelegramApiRequestException e) {
+            Integer code = e.getErrorCode();
+            if (code != null && (code == 400 || code == 403)) {
+                log.warn("Dropping outbound message {} to chat {}: {}", entry.id(), entry.chatId(), e.getMessage());
+                acknowledge(entry);
+            }
+            throw e;
+        }
+    }
+
+    private void acknowledge(OutboundJournal.Entry entry) {
+        try {
+            outbox.ack(entry.id());
+        } catch (IOException e) {
+            // The message may be sent again after a restart.
+            log.error("Failed to acknowledge outbound message {}: {}", entry.id(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sends again every journaled message that was not delivered before the previous shutdown
+     * or crash. Called by {@link travel.letstrip.config.TelegramBotManager#start()}; delivery
+     * is at least once, so a message whose acknowledgement was lost is sent twice. Messages
+     * journaled by this process are not replayed, since they are still being delivered, and
+     * further calls replay nothing.
+     *
+     * @return The number of messages being replayed.
+     */
+    public int replayOutbox() {
+        if (outbox == null) {
+            return 0;
+        }
+        List<OutboundJournal.Entry> entries = outbox.takeRecovered();
+        for (OutboundJournal.Entry entry : entries) {
+            async(() -> deliver(entry)).whenComplete((message, error) -> {
+                if (error != null) {
+                    log.error("Failed to replay outbound message {}: {}", entry.id(), error.getMessage());
+                }
+            });
+        }
+        if (!entries.isEmpty()) {
+            log.info("Replaying {} outbound messages", entries.size());
+        }
+        return entries.size();
+    }
+
+    /**
+     * Starts sending the messages of the {@link MessageScheduler}, beginning with those that
+     * fell due while the bot was down. Called by {@link travel.letstrip.config.TelegramBotManager#start()}
+     * once the bot is registered and the outbound journal is replayed, so that nothing is sent
+     * by a bot that failed to start; until then, messages can be scheduled but none is sent.
+     */
+    public void startMessageScheduler() {
+        messageScheduler.start(this::sendScheduled);
+    }
+
+    /**
+     * Sends a message that fell due in the {@link MessageScheduler}. With a configured outbound
+     * journal, the message is journaled first, so it is delivered even if the process stops
+     * before Telegram accepts it.
+     *
+     * @param scheduled The due message.
+     * @return A future completed with the sent {@link Message}.
+     */
+    private CompletableFuture<Message> sendScheduled(ScheduledMessage scheduled) {
+        return async(() -> {
+            if (outbox != null) {
+                try {
+                    return deliver(outbox.enqueue(scheduled.getChatId(), scheduled.getTopicId(), null, scheduled.getText()));
+                } catch (IOException e) {
+                    log.error("Failed to journal scheduled message {}, sending without durability: {}", scheduled.getId(), e.getMessage());
+                }
+            }
+            SendMessage sendMessage = new SendMessage();
+            sendMessage.setChatId(Long.toString(scheduled.getChatId()));
+            sendMessage.setText(scheduled.getText());
+            if (scheduled.getTopicId() != null) {
+                sendMessage.setMessageThreadId(scheduled.getTopicId());
+            }
+            return sendText(sendMessage);
+        });
+    }
+
+    /**
+     * Sends a message to a single group and records the outcome for a broadcast.
+     *
+     * @param group   The target group.
+     * @param message The text message to send.
+     * @param entry   The journal entry of the message, or {@code null} if it is not journaled.
+     * @return The {@link SendResult} describing the outcome.
+     */
+    private SendResult sendToGroup(GroupConfig group, String message, OutboundJournal.Entry entry) {
+        long start = System.nanoTime();
+        try {
+            if (entry != null) {
+                deliver(entry);
+            } else {
+                SendMessage sendMessage = createMessage(group, message);
+                sendText(sendMessage);
+            }
+            return SendResult.success(group, elapsedMillis(start));
+        } catch (TelegramApiException e) {
+            log.error("Failed to send message to group {}: {}", group.getName(), e.getMessage());
+            return SendResult.failure(group, e.getMessage(), elapsedMillis(start));
+        }
+    }
+
+    private static SendResult resultOf(Future<SendResult> future, GroupConfig group) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return SendResult.failure(group, String.valueOf(e.getCause()), 0);
+        }
+    }
+
+    /**
+     * Converts the string chat ID carried by API methods back to a numeric ID for rate limiting.
+     *
+     * @param chatId The chat ID as set on the API method.
+     * @return The numeric chat ID, or {@code null} for channel usernames such as {@code "@channel"}.
+     */
+    private static Long chatIdOf(String chatId) {
+        try {
+            return Long.valueOf(chatId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Creates a {@link SendMessage} addressed to the group and, if configured, its topic.
+     *
+     * @param group   The target group.
+     * @param message The text message.
+     * @return The configured {@link SendMessage}.
+     */
+    private SendMessage createMessage(GroupConfig group, String message) {
+        SendMessage sendMessage = new SendMessage();
+        sendMessage.setChatId(group.getChatId().toString());
+        sendMessage.setText(message);
+
+        if (group.hasTopic()) {
+            sendMessage.setMessageThreadId(group.getTopicId());
+        }
+        return sendMessage;
+    }
+
+    // --- YANGI METODLAR ---
+
+    /**
+     * Helper method to execute a SendMessage object.
+     *
+     * @param sendMessage The configured SendMessage object.
+     * @return {@code true} if successful, {@code false} otherwise.
+     */
+    private boolean sendActionMessage(SendMessage sendMessage) {
+        try {
+            sendText(sendMessage);
+            return true;
+        } catch (TelegramApiException e) {
+            log.error("Failed to send message to chat ID {}: {}", sendMessage.getChatId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Sends a basic text message to a specific Telegram group defined by its configuration.
+     *
+     * @param group   The {@link GroupConfig} object containing the group ID and topic ID (if applicable).
+     * @param message The text message to send.
+     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendMessage(GroupConfig group, String message) {
+        return sendActionMessage(createMessage(group, message));
+    }
+
+    /**
+     * Sends a text message to a specific Telegram group, allowing for a custom {@link ParseMode}
+     * (e.g., Markdown or HTML).
+     *
+     * @param group     The {@link GroupConfig} object containing the group ID and topic ID (if applicable).
+     * @param message   The text message to send.
+     * @param parseMode The {@link ParseMode} to use for formatting the message text.
+     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendMessage(GroupConfig group, String message, ParseMode parseMode) {
+        SendMessage sendMessage = createMessage(group, message);
+        sendMessage.setParseMode(parseMode.toString());
+
+        return sendActionMessage(sendMessage);
+    }
+
+    /**
+     * Sends a message in reply to a specific existing message in a chat.
+     *
+     * @param chatId The ID of the chat where the message should be sent.
+     * @param replyToMessageId The ID of the message to which the bot is replying.
+     * @param text The text message content.
+     * @param parseMode The {@link ParseMode} for formatting.
+     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendReplyMessage(Long chatId, Integer replyToMessageId, String text, ParseMode parseMode) {
+        return sendActionMessage(createReplyMessage(chatId, replyToMessageId, text, parseMode));
+    }
+
+    private SendMessage createReplyMessage(Long chatId, Integer replyToMessageId, String text, ParseMode parseMode) {
+        SendMessage sendMessage = new SendMessage();
+        sendMessage.setChatId(chatId.toString());
+        sendMessage.setText(text);
+        sendMessage.setReplyToMessageId(replyToMessageId);
+
+        if (parseMode != null) {
+            sendMessage.setParseMode(parseMode.toString());
+        }
+        return sendMessage;
+    }
+
+    /**
+     * Sends a text message to a group looked up by its registered name in the configuration.
+     *
+     * @param groupName The name of the group as defined in the configuration.
+     * @param message   The text message to send.
+     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     * @throws IllegalArgumentException if the group name is not found in the configuration.
+     */
+    public boolean sendMessageByGroupName(String groupName, String message) {
+        GroupConfig group = config.getGroupByName(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("Group not found : " + groupName);
+        }
+        return sendMessage(group, message);
+    }
+
+    /**
+     * Sends a text message to a group looked up by its ID in the configuration.
+     *
+     * @param groupId The ID of the group as defined in the configuration.
+     * @param message The text message to send.
+     * @return {@code true} if the message was sent successfully, {@code false} otherwise.
+     * @throws IllegalArgumentException if the group ID is not found in the configuration.
+     */
+    public boolean sendMessageByGroupId(Long groupId, String message) {
+        GroupConfig group = config.getGroupById(groupId);
+        if (group == null) {
+            throw new IllegalArgumentException("Group not found by id : " + groupId);
+        }
+        return sendMessage(group, message);
+    }
+
+    /**
+     * Sends a photo file to a specific Telegram group with an optional caption.
+     *
+     * @param group   The {@link GroupConfig} object for the target group.
+     * @param photo   The {@link File} object representing the photo to send.
+     * @param caption An optional caption for the photo (can be {@code null} or empty).
+     * @return {@code true} if the photo was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendPhoto(GroupConfig group, File photo, String caption) {
+        try {
+            sendPhotoMessage(group, photo, caption);
+        } catch (TelegramApiException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends a photo file to a specific Telegram group with an optional caption.
+     *
+     * @param group   The {@link GroupConfig} object for the target group.
+     * @param photo   The {@link Path} of the photo to send; it is streamed from disk.
+     * @param caption An optional caption for the photo (can be {@code null} or empty).
+     * @return {@code true} if the photo was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendPhoto(GroupConfig group, Path photo, String caption) {
+        return sendPhoto(group, photo.toFile(), caption);
+    }
+
+    /**
+     * Sends a photo read from a stream to a specific Telegram group with an optional caption.
+     * The stream is uploaded as it is read, without buffering it in memory. Because a stream
+     * can only be read once, a failed upload is not retried. The stream is not closed.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param photo    The stream with the photo content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the photo (can be {@code null} or empty).
+     * @return {@code true} if the photo was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendPhoto(GroupConfig group, InputStream photo, String fileName, String caption) {
+        try {
+            sendPhotoMessage(group, photo, fileName, caption);
+        } catch (TelegramApiException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends a photo held in a buffer to a specific Telegram group with an optional caption.
+     * The bytes between the buffer's position and limit are uploaded directly from the
+     * buffer, which may be direct or memory-mapped; the buffer's position is not changed.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param photo    The buffer with the photo content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the photo (can be {@code null} or empty).
+     * @return {@code true} if the photo was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendPhoto(GroupConfig group, ByteBuffer photo, String fileName, String caption) {
+        try {
+            sendPhotoMessage(group, photo, fileName, caption);
+        } catch (TelegramApiException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    private SendPhoto createPhoto(GroupConfig group, InputFile photo, String caption) {
+        SendPhoto sendPhoto = new SendPhoto();
+        sendPhoto.setChatId(group.getChatId().toString());
+        sendPhoto.setPhoto(photo);
+
+        if (caption != null && !caption.isEmpty()) {
+            sendPhoto.setCaption(caption);
+        }
+
+        if (group.hasTopic()) {
+            sendPhoto.setMessageThreadId(group.getTopicId());
+        }
+        return sendPhoto;
+    }
+
+    /**
+     * Sends a photo file to a group looked up by its ID in the configuration.
+     *
+     * @param groupId The ID of the group as defined in the configuration.
+     * @param photo The {@link File} object representing the photo to send.
+     * @param caption An optional caption for the photo.
+     * @return {@code true} if the photo was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendPhotoByGroupId(Long groupId, File photo, String caption) {
+        GroupConfig group = config.getGroupById(groupId);
+        if (group == null) {
+            throw new IllegalArgumentException("Group not found by id : " + groupId);
+        }
+        return sendPhoto(group, photo, caption);
+    }
+
+    /**
+     * Sends a document file (e.g., a PDF, text file, etc.) to a specific Telegram group
+     * with an optional caption.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The {@link File} object representing the document to send.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return {@code true} if the document was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendDocument(GroupConfig group, File document, String caption) {
+        try {
+            sendDocumentMessage(group, document, caption);
+        } catch (TelegramApiException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends a document file to a specific Telegram group with an optional caption.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The {@link Path} of the document to send; it is streamed from disk.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return {@code true} if the document was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendDocument(GroupConfig group, Path document, String caption) {
+        return sendDocument(group, document.toFile(), caption);
+    }
+
+    /**
+     * Sends a document read from a stream to a specific Telegram group with an optional
+     * caption. The stream is uploaded as it is read, without buffering it in memory. Because
+     * a stream can only be read once, a failed upload is not retried. The stream is not closed.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The stream with the document content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return {@code true} if the document was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendDocument(GroupConfig group, InputStream document, String fileName, String caption) {
+        try {
+            sendDocumentMessage(group, document, fileName, caption);
+        } catch (TelegramApiException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends a document held in a buffer to a specific Telegram group with an optional caption.
+     * The bytes between the buffer's position and limit are uploaded directly from the
+     * buffer, which may be direct or memory-mapped; the buffer's position is not changed.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The buffer with the document content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return {@code true} if the document was sent successfully, {@code false} otherwise.
+     */
+    public boolean sendDocument(GroupConfig group, ByteBuffer document, String fileName, String caption) {
+        try {
+            sendDocumentMessage(group, document, fileName, caption);
+        } catch (TelegramApiException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    private SendDocument createDocument(GroupConfig group, InputFile document, String caption) {
+        SendDocument sendDocument = new SendDocument();
+        sendDocument.setChatId(group.getChatId().toString());
+        sendDocument.setDocument(document);
+
+        if (caption != null && !caption.isEmpty()) {
+            sendDocument.setCaption(caption);
+        }
+
+        if (group.hasTopic()) {
+            sendDocument.setMessageThreadId(group.getTopicId());
+        }
+        return sendDocument;
+    }
+
+    /**
+     * Sends several photos or documents to a specific Telegram group as albums, so that up to
+     * ten items take a single request. Items may be local files or {@code file_id}s of media
+     * already uploaded to Telegram. Photos and documents cannot share an album, so a list
+     * mixing both is sent as consecutive albums in the given order.
+     *
+     * @param group The {@link GroupConfig} object for the target group.
+     * @param items The photos and documents to send.
+     * @return {@code true} if every item was sent successfully, {@code false} otherwise. Albums
+     * sent before a failure are not rolled back.
+     */
+    public boolean sendAlbum(GroupConfig group, List<AlbumItem> items) {
+        try {
+            sendAlbumMessages(group, items);
+        } catch (TelegramApiException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    // --- CHAT ADMINISTRATION METHODS ---
+
+    /**
+     * Kicks a member from a chat, allowing the user to rejoin: the member is banned and
+     * immediately unbanned. Note: This method requires the bot to be an administrator in
+     * the chat with the 'Restrict and ban users' permission.
+     *
+     * @param chatId The ID of the chat/group.
+     * @param userId The ID of the user to kick.
+     * @return {@code true} if the member was successfully kicked, {@code false} otherwise.
+     */
+    public boolean kickChatMember(Long chatId, Long userId) {
+        try {
+            kick(chatId, userId);
+            invalidateChatMember(chatId, userId);
+            return true;
+        } catch (TelegramApiException e) {
+            log.error("Failed to kick user {} from chat {}: {}", userId, chatId, e.getMessage());
             return false;
         }
     }
@@ -393,6 +1670,80 @@ public class TelegramBotService extends TelegramLongPollingBot {
      * @return {@code true} if the member was successfully banned, {@code false} otherwise.
      */
     public boolean banChatMember(Long chatId, Long userId, Integer untilDateUnix) {
+        BanChatMember banChatMember = createBan(chatId, userId, untilDateUnix);
+
+        try {
+            call("banChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(banChatMember));
+            invalidateChatMember(chatId, userId);
+            return true;
+        } catch (TelegramApiException e) {
+            log.error("Failed to ban user {} from chat {}: {}", userId, chatId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Mutes a member of a group for a period of time by revoking their permission to send
+     * messages. Note: Requires 'Restrict users' administrator permission.
+     *
+     * @param chatId The ID of the chat/group.
+     * @param userId The ID of the user to mute.
+     * @param duration How long the user stays muted; Telegram treats less than 30 seconds or
+     *                 more than 366 days as forever.
+     * @return {@code true} if the member was successfully muted, {@code false} otherwise.
+     */
+    public boolean muteChatMember(Long chatId, Long userId, Duration duration) {
+        RestrictChatMember restrictChatMember = new RestrictChatMember(chatId.toString(), userId,
+                ChatPermissions.builder().canSendMessages(false).build());
+        restrictChatMember.forTimePeriodDuration(duration);
+
+        try {
+            call("restrictChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(restrictChatMember));
+            invalidateChatMember(chatId, userId);
+            return true;
+        } catch (TelegramApiException e) {
+            log.error("Failed to mute user {} in chat {}: {}", userId, chatId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes a message from a chat. Note: Deleting other users' messages requires
+     * 'Delete messages' administrator permission.
+     *
+     * @param chatId The ID of the chat/group.
+     * @param messageId The ID of the message to delete.
+     * @return {@code true} if the message was successfully deleted, {@code false} otherwise.
+     */
+    public boolean deleteMessage(Long chatId, Integer messageId) {
+        DeleteMessage deleteMessage = new DeleteMessage(chatId.toString(), messageId);
+
+        try {
+            call("deleteMessage", chatId, RateLimitScope.GLOBAL, () -> execute(deleteMessage));
+            return true;
+        } catch (TelegramApiException e) {
+            log.error("Failed to delete message {} in chat {}: {}", messageId, chatId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Removes a member from a chat without banning them. Telegram has no kick method, and a
+     * ban shorter than 30 seconds counts as permanent, so the member is banned and then
+     * unbanned again; {@code only_if_banned} keeps the unban from affecting anyone else.
+     */
+    private void kick(Long chatId, Long userId) throws TelegramApiException {
+        BanChatMember banChatMember = createBan(chatId, userId, null);
+        call("banChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(banChatMember));
+
+        UnbanChatMember unbanChatMember = new UnbanChatMember();
+        unbanChatMember.setChatId(chatId.toString());
+        unbanChatMember.setUserId(userId);
+        unbanChatMember.setOnlyIfBanned(true);
+        call("unbanChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(unbanChatMember));
+    }
+
+    private BanChatMember createBan(Long chatId, Long userId, Integer untilDateUnix) {
         BanChatMember banChatMember = new BanChatMember();
         banChatMember.setChatId(chatId.toString());
         banChatMember.setUserId(userId);
@@ -400,13 +1751,358 @@ public class TelegramBotService extends TelegramLongPollingBot {
         if (untilDateUnix != null && untilDateUnix > 0) {
             banChatMember.setUntilDate(untilDateUnix);
         }
+        return banChatMember;
+    }
+
+    // --- BULK MODERATION METHODS ---
+
+    /**
+     * Applies a moderation action to every user in every chat, e.g. to remove a spammer from
+     * all groups or to clean out a raid. The actions run concurrently, subject to the global
+     * rate limit.
+     *
+     * @param action The action to apply.
+     * @param chatIds The chats to apply it in.
+     * @param userIds The users to apply it to.
+     * @return The aggregated {@link ModerationReport}.
+     */
+    public ModerationReport moderate(ModerationAction action, Collection<Long> chatIds, Collection<Long> userIds) {
+        return moderate(action, chatIds, userIds, false, null);
+    }
+
+    /**
+     * Applies a moderation action to every user in every chat, optionally as a dry run and
+     * with a ledger of completed actions.
+     * <p>
+     * Actions found in the ledger are reported as {@link ModerationStatus#SKIPPED} without
+     * calling Telegram, and each successful action is recorded in it, so running the same
+     * batch again with the same ledger only retries what failed or was not reached.
+     *
+     * @param action The action to apply.
+     * @param chatIds The chats to apply it in.
+     * @param userIds The users to apply it to.
+     * @param dryRun If {@code true}, no action is applied; each pending pair is reported as
+     *               {@link ModerationStatus#DRY_RUN}.
+     * @param ledger The ledger of completed actions, or {@code null} for none.
+     * @return The aggregated {@link ModerationReport}.
+     */
+    public ModerationReport moderate(ModerationAction action, Collection<Long> chatIds, Collection<Long> userIds,
+                                     boolean dryRun, ModerationLedger ledger) {
+        List<Callable<ModerationResult>> tasks = new ArrayList<>(chatIds.size() * userIds.size());
+        List<long[]> targets = new ArrayList<>(chatIds.size() * userIds.size());
+        List<ModerationResult> results = new ArrayList<>(chatIds.size() * userIds.size());
+        for (Long chatId : new LinkedHashSet<>(chatIds)) {
+            for (Long userId : new LinkedHashSet<>(userIds)) {
+                if (ledger != null && ledger.isCompleted(action, chatId, userId)) {
+                    results.add(new ModerationResult(chatId, userId, ModerationStatus.SKIPPED, null));
+                } else if (dryRun) {
+                    results.add(new ModerationResult(chatId, userId, ModerationStatus.DRY_RUN, null));
+                } else {
+                    tasks.add(() -> moderateMember(action, chatId, userId, ledger));
+                    targets.add(new long[]{chatId, userId});
+                }
+            }
+        }
 
+        // Every pair gets a result, so that the counts of the report add up to the batch size.
+        List<Future<ModerationResult>> futures = new ArrayList<>(tasks.size());
+        int collected = 0;
         try {
-            execute(banChatMember);
-            return true;
+            for (Callable<ModerationResult> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (; collected < futures.size(); collected++) {
+                long[] target = targets.get(collected);
+                try {
+                    results.add(futures.get(collected).get());
+                } catch (ExecutionException e) {
+                    results.add(failedModeration(action, target, e.getCause()));
+                }
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Bulk {} stopped after {} of {} actions: {}", action, collected, tasks.size(), String.valueOf(e));
+            // Actions that finished before the interruption are reported as they ended.
+            for (int i = collected; i < targets.size(); i++) {
+                long[] target = targets.get(i);
+                Future<ModerationResult> future = i < futures.size() ? futures.get(i) : null;
+                if (future != null) {
+                    future.cancel(true);
+                }
+                if (future != null && future.state() == Future.State.SUCCESS) {
+                    results.add(future.resultNow());
+                } else if (future != null && future.state() == Future.State.FAILED) {
+                    results.add(failedModeration(action, target, future.exceptionNow()));
+                } else if (ledger != null && ledger.isCompleted(action, target[0], target[1])) {
+                    results.add(new ModerationResult(target[0], target[1], ModerationStatus.SUCCEEDED, null));
+                } else {
+                    results.add(new ModerationResult(target[0], target[1], ModerationStatus.FAILED, "Interrupted"));
+                }
+            }
+        }
+
+        ModerationReport report = new ModerationReport(action, dryRun, results);
+        log.info("Bulk moderation finished: {}", report);
+        return report;
+    }
+
+    private static ModerationResult failedModeration(ModerationAction action, long[] target, Throwable cause) {
+        log.error("Failed to {} user {} in chat {}: {}", action, target[1], target[0], String.valueOf(cause));
+        return new ModerationResult(target[0], target[1], ModerationStatus.FAILED, String.valueOf(cause));
+    }
+
+    private ModerationResult moderateMember(ModerationAction action, Long chatId, Long userId, ModerationLedger ledger) {
+        try {
+            switch (action) {
+                case KICK -> kick(chatId, userId);
+                case BAN -> {
+                    BanChatMember banChatMember = createBan(chatId, userId, null);
+                    call("banChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(banChatMember));
+                }
+            }
         } catch (TelegramApiException e) {
-            log.error("Failed to ban user {} from chat {}: {}", userId, chatId, e.getMessage());
-            return false;
+            log.error("Failed to {} user {} in chat {}: {}", action, userId, chatId, e.getMessage());
+            return new ModerationResult(chatId, userId, ModerationStatus.FAILED, e.getMessage());
+        }
+        removeMember(chatId, userId);
+        invalidateChatMember(chatId, userId);
+        if (ledger != null) {
+            ledger.markCompleted(action, chatId, userId);
+        }
+        return new ModerationResult(chatId, userId, ModerationStatus.SUCCEEDED, null);
+    }
+
+    // --- ASYNC METHODS ---
+    // Non-blocking counterparts of the methods above. Each future completes with the
+    // Telegram API result, or exceptionally with the TelegramApiException that caused the
+    // failure, so callers can pipeline and compose many sends without blocking a thread.
+
+    /**
+     * Asynchronously sends a basic text message to a specific Telegram group.
+     * <p>
+     * If the group has a {@linkplain GroupConfig#getCoalesceWindowMillis() coalescing window},
+     * the message is merged with the other messages sent to the same chat and topic within the
+     * window, see {@link MessageCoalescer}.
+     *
+     * @param group   The {@link GroupConfig} object containing the group ID and topic ID (if applicable).
+     * @param message The text message to send.
+     * @return A future completed with the sent {@link Message}, which may carry other texts as well.
+     */
+    public CompletableFuture<Message> sendMessageAsync(GroupConfig group, String message) {
+        if (group.getCoalesceWindowMillis() > 0) {
+            return coalescer.submit(group, message, null, this::sendTextAsync);
+        }
+        SendMessage sendMessage = createMessage(group, message);
+        return sendTextAsync(sendMessage);
+    }
+
+    /**
+     * Asynchronously sends a text message to a specific Telegram group with a custom {@link ParseMode}.
+     * Messages are coalesced like in {@link #sendMessageAsync(GroupConfig, String)}, but only
+     * with messages of the same parse mode.
+     *
+     * @param group     The {@link GroupConfig} object containing the group ID and topic ID (if applicable).
+     * @param message   The text message to send.
+     * @param parseMode The {@link ParseMode} to use for formatting the message text.
+     * @return A future completed with the sent {@link Message}, which may carry other texts as well.
+     */
+    public CompletableFuture<Message> sendMessageAsync(GroupConfig group, String message, ParseMode parseMode) {
+        if (group.getCoalesceWindowMillis() > 0) {
+            return coalescer.submit(group, message, parseMode.toString(), this::sendTextAsync);
+        }
+        SendMessage sendMessage = createMessage(group, message);
+        sendMessage.setParseMode(parseMode.toString());
+        return sendTextAsync(sendMessage);
+    }
+
+    /**
+     * Sends a text message through the durable outbound queue. The message is recorded in
+     * the journal before this method returns, and is sent again after a restart if it was not
+     * delivered. Without a configured {@link BotConfig#getOutboxFile() journal} this is the
+     * same as {@link #sendMessageAsync(GroupConfig, String)}.
+     *
+     * @param group   The {@link GroupConfig} object containing the group ID and topic ID (if applicable).
+     * @param message The text message to send.
+     * @return A future completed with the sent {@link Message}.
+     * @throws UncheckedIOException If the message cannot be recorded in the journal.
+     */
+    public CompletableFuture<Message> sendMessageDurable(GroupConfig group, String message) {
+        if (outbox == null) {
+            return sendMessageAsync(group, message);
+        }
+        OutboundJournal.Entry entry;
+        try {
+            entry = outbox.enqueue(group.getChatId(), group.hasTopic() ? group.getTopicId() : null, null, message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return async(() -> deliver(entry));
+    }
+
+    /**
+     * Asynchronously sends a message in reply to a specific existing message in a chat.
+     *
+     * @param chatId The ID of the chat where the message should be sent.
+     * @param replyToMessageId The ID of the message to which the bot is replying.
+     * @param text The text message content.
+     * @param parseMode The {@link ParseMode} for formatting (may be {@code null}).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendReplyMessageAsync(Long chatId, Integer replyToMessageId, String text, ParseMode parseMode) {
+        SendMessage sendMessage = createReplyMessage(chatId, replyToMessageId, text, parseMode);
+        return sendTextAsync(sendMessage);
+    }
+
+    /**
+     * Asynchronously sends a photo file to a specific Telegram group with an optional caption.
+     *
+     * @param group   The {@link GroupConfig} object for the target group.
+     * @param photo   The {@link File} object representing the photo to send.
+     * @param caption An optional caption for the photo (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendPhotoAsync(GroupConfig group, File photo, String caption) {
+        return async(() -> sendPhotoMessage(group, photo, caption));
+    }
+
+    /**
+     * Asynchronously sends a document file to a specific Telegram group with an optional caption.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The {@link File} object representing the document to send.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendDocumentAsync(GroupConfig group, File document, String caption) {
+        return async(() -> sendDocumentMessage(group, document, caption));
+    }
+
+    /**
+     * Asynchronously sends several photos or documents to a specific Telegram group as albums.
+     *
+     * @param group The {@link GroupConfig} object for the target group.
+     * @param items The photos and documents to send.
+     * @return A future completed with the sent {@link Message}s, one per item.
+     * @see #sendAlbum(GroupConfig, List)
+     */
+    public CompletableFuture<List<Message>> sendAlbumAsync(GroupConfig group, List<AlbumItem> items) {
+        return async(() -> sendAlbumMessages(group, items));
+    }
+
+    /**
+     * Asynchronously sends a photo file to a specific Telegram group with an optional caption.
+     *
+     * @param group   The {@link GroupConfig} object for the target group.
+     * @param photo   The {@link Path} of the photo to send; it is streamed from disk.
+     * @param caption An optional caption for the photo (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendPhotoAsync(GroupConfig group, Path photo, String caption) {
+        return sendPhotoAsync(group, photo.toFile(), caption);
+    }
+
+    /**
+     * Asynchronously sends a photo read from a stream to a specific Telegram group. The
+     * upload is not retried; the stream must stay open until the future completes.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param photo    The stream with the photo content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the photo (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendPhotoAsync(GroupConfig group, InputStream photo, String fileName, String caption) {
+        return async(() -> sendPhotoMessage(group, photo, fileName, caption));
+    }
+
+    /**
+     * Asynchronously sends a photo held in a buffer to a specific Telegram group. The buffer
+     * must not be modified until the future completes.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param photo    The buffer with the photo content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the photo (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendPhotoAsync(GroupConfig group, ByteBuffer photo, String fileName, String caption) {
+        return async(() -> sendPhotoMessage(group, photo, fileName, caption));
+    }
+
+    /**
+     * Asynchronously sends a document file to a specific Telegram group with an optional caption.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The {@link Path} of the document to send; it is streamed from disk.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendDocumentAsync(GroupConfig group, Path document, String caption) {
+        return sendDocumentAsync(group, document.toFile(), caption);
+    }
+
+    /**
+     * Asynchronously sends a document read from a stream to a specific Telegram group. The
+     * upload is not retried; the stream must stay open until the future completes.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The stream with the document content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendDocumentAsync(GroupConfig group, InputStream document, String fileName, String caption) {
+        return async(() -> sendDocumentMessage(group, document, fileName, caption));
+    }
+
+    /**
+     * Asynchronously sends a document held in a buffer to a specific Telegram group. The
+     * buffer must not be modified until the future completes.
+     *
+     * @param group    The {@link GroupConfig} object for the target group.
+     * @param document The buffer with the document content.
+     * @param fileName The file name reported to Telegram.
+     * @param caption  An optional caption for the document (can be {@code null} or empty).
+     * @return A future completed with the sent {@link Message}.
+     */
+    public CompletableFuture<Message> sendDocumentAsync(GroupConfig group, ByteBuffer document, String fileName, String caption) {
+        return async(() -> sendDocumentMessage(group, document, fileName, caption));
+    }
+
+    /**
+     * Asynchronously kicks a member from a chat, allowing the user to rejoin.
+     *
+     * @param chatId The ID of the chat/group.
+     * @param userId The ID of the user to kick.
+     * @return A future completed with the API result ({@code true} on success).
+     * @see #kickChatMember(Long, Long)
+     */
+    public CompletableFuture<Boolean> kickChatMemberAsync(Long chatId, Long userId) {
+        return async(() -> {
+            kick(chatId, userId);
+            invalidateChatMember(chatId, userId);
+            return true;
+        });
+    }
+
+    /**
+     * Asynchronously bans a member from a chat permanently (or for a specified duration).
+     *
+     * @param chatId The ID of the chat/group.
+     * @param userId The ID of the user to ban.
+     * @param untilDateUnix Optional: Date when the user can return, as a Unix timestamp (seconds).
+     * If {@code null} or 0, the ban is permanent.
+     * @return A future completed with the API result ({@code true} on success).
+     * @see #banChatMember(Long, Long, Integer)
+     */
+    public CompletableFuture<Boolean> banChatMemberAsync(Long chatId, Long userId, Integer untilDateUnix) {
+        BanChatMember banChatMember = createBan(chatId, userId, untilDateUnix);
+        return callAsync("banChatMember", chatId, RateLimitScope.GLOBAL, () -> execute(banChatMember))
+                .thenApply(banned -> {
+                    invalidateChatMember(chatId, userId);
+                    return banned;
+                });
     }
 }
\ No newline at end of file
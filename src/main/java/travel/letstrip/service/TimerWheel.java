@@ -0,0 +1,188 @@
+package travel.letstrip.service;
+
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel holding timers with millisecond deadlines.
+ * <p>
+ * Time is divided into ticks of a fixed length. The wheel has {@value #LEVELS} levels of
+ * {@value #SLOTS} slots each: level 0 holds timers due within the current block of 64 ticks,
+ * level 1 those due within the current block of 64 * 64 ticks, and so on, so the wheel spans
+ * 2^36 ticks. Each slot is a doubly linked list. Adding and removing a timer therefore costs
+ * O(1) regardless of how many timers are pending; when time enters a new block, the timers
+ * of the matching higher-level slot are moved down one level, so every timer is moved at
+ * most {@value #LEVELS} times before it fires.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> The type of the value carried by a timer.
+ */
+final class TimerWheel<T> {
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int LEVELS = 6;
+
+    private final long tickMillis;
+    private final Node<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param tickMillis The length of a tick; timers fire at most this late.
+     * @param nowMillis The current time.
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(long tickMillis, long nowMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be at least 1");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        this.slots = (Node<T>[][]) new Node<?>[LEVELS][SLOTS];
+        for (Node<T>[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                Node<T> head = new Node<>(0, null);
+                head.prev = head;
+                head.next = head;
+                level[i] = head;
+            }
+        }
+    }
+
+    /**
+     * Adds a timer. A deadline in the past fires on the next {@link #advance}.
+     *
+     * @param deadlineMillis The time the timer is due.
+     * @param value The value returned when the timer fires.
+     * @return A handle for {@link #remove(Node)}.
+     */
+    Node<T> add(long deadlineMillis, T value) {
+        long tick = Math.max(currentTick + 1, ceilDiv(deadlineMillis, tickMillis));
+        Node<T> node = new Node<>(tick, value);
+        place(node);
+        size++;
+        return node;
+    }
+
+    /**
+     * Removes a timer that has not fired yet.
+     *
+     * @param node The handle returned by {@link #add}.
+     * @return {@code true} if the timer was pending.
+     */
+    boolean remove(Node<T> node) {
+        if (node.prev == null) {
+            return false;
+        }
+        unlink(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time, collecting the values of all timers due by then.
+     *
+     * @param nowMillis The current time.
+     * @param expired Receives the values of the timers that fired, in deadline order.
+     */
+    void advance(long nowMillis, List<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            long tick = ++currentTick;
+            int level = 0;
+            while (level < LEVELS - 1 && (tick & ((1L << (LEVEL_BITS * (level + 1))) - 1)) == 0) {
+                level++;
+            }
+            // Higher levels first, so timers cascade down to the slot that is about to fire.
+            for (; level > 0; level--) {
+                cascade(slots[level][(int) (tick >>> (LEVEL_BITS * level)) & (SLOTS - 1)]);
+            }
+            Node<T> head = slots[0][(int) tick & (SLOTS - 1)];
+            for (Node<T> node = head.next; node != head; ) {
+                Node<T> next = node.next;
+                unlink(node);
+                size--;
+                expired.add(node.value);
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of pending timers.
+     *
+     * @return The timer count.
+     */
+    int size() {
+        return size;
+    }
+
+    private void cascade(Node<T> head) {
+        Node<T> node = head.next;
+        head.next = head;
+        head.prev = head;
+        while (node != head) {
+            Node<T> next = node.next;
+            place(node);
+            node = next;
+        }
+    }
+
+    /**
+     * Links a node into the lowest level whose current block contains its deadline.
+     */
+    private void place(Node<T> node) {
+        int level = 0;
+        while (level < LEVELS - 1
+                && (node.tick >>> (LEVEL_BITS * (level + 1))) != (currentTick >>> (LEVEL_BITS * (level + 1)))) {
+            level++;
+        }
+        Node<T> head = slots[level][(int) (node.tick >>> (LEVEL_BITS * level)) & (SLOTS - 1)];
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private static <V> void unlink(Node<V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    /**
+     * A pending timer.
+     */
+    static final class Node<T> {
+        private final long tick;
+        private final T value;
+        private Node<T> prev;
+        private Node<T> next;
+
+        private Node(long tick, T value) {
+            this.tick = tick;
+            this.value = value;
+        }
+
+        /**
+         * Returns the value carried by this timer.
+         *
+         * @return The value.
+         */
+        T value() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package travel.letstrip.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread-safe token bucket used to pace outbound requests.
+ * <p>
+ * The bucket holds up to {@code capacity} tokens and is refilled continuously at a fixed
+ * rate. Callers reserve a token under a short lock and then sleep outside of it, so waiting
+ * callers are released in reservation order without holding the monitor.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructs a new TokenBucket that starts full.
+     *
+     * @param capacity The maximum number of tokens (the allowed burst size).
+     * @param tokensPerPeriod The number of tokens added over each {@code period}.
+     * @param period The refill period.
+     */
+    public TokenBucket(int capacity, int tokensPerPeriod, Duration period) {
+        if (capacity <= 0 || tokensPerPeriod <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Token bucket capacity, rate and period must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) tokensPerPeriod / period.toNanos();
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, blocking the current thread until one becomes available.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token only if one is available right now.
+     *
+     * @return {@code true} if a token was taken, {@code false} otherwise.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the bucket has been refilled to its full capacity, meaning it has
+     * been idle long enough to be discarded without affecting pacing.
+     *
+     * @return {@code true} if the bucket is full.
+     */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    /**
+     * Reserves a token, allowing the balance to go negative, and returns how long the
+     * caller has to wait before the reserved token is actually available.
+     *
+     * @return The wait time in nanoseconds, or {@code 0} if a token was immediately available.
+     */
+    synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,245 @@
+package travel.letstrip.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import travel.letstrip.enums.OverflowPolicy;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hands incoming updates to a worker pool so that different chats are processed in parallel,
+ * while updates of the same chat are still processed strictly one after another in the order
+ * they were received.
+ * <p>
+ * Each chat with pending updates owns a small serial queue that is drained by at most one
+ * worker at a time. The total number of queued updates across all chats is bounded; when the
+ * bound is reached the configured {@link OverflowPolicy} decides whether the receiver waits,
+ * the update is dropped, or it is rejected.
+ */
+@Slf4j
+public class UpdateDispatcher {
+
+    /** Default maximum number of updates waiting to be processed across all chats. */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final Consumer<Update> handler;
+    private final Executor executor;
+    private final OverflowPolicy overflowPolicy;
+    private final int capacity;
+    private final Semaphore permits;
+    private final Map<Long, ChatQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructs a new UpdateDispatcher.
+     *
+     * @param handler The handler each update is passed to.
+     * @param executor The executor running the per-chat workers; a virtual-thread executor is recommended.
+     * @param capacity The maximum number of updates waiting to be processed across all chats.
+     * @param overflowPolicy What to do with an incoming update when {@code capacity} is reached.
+     */
+    public UpdateDispatcher(Consumer<Update> handler, Executor executor, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Dispatch capacity must be positive");
+        }
+        this.handler = handler;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.permits = new Semaphore(capacity);
+    }
+
+    /**
+     * Queues an update for processing.
+     *
+     * @param update The incoming update.
+     * @throws RejectedExecutionException If the queue is full and the policy is {@link OverflowPolicy#REJECT},
+     * or if the executor no longer accepts workers, e.g. after it was shut down.
+     */
+    public void dispatch(Update update) {
+        if (!reserveSlot(update)) {
+            return;
+        }
+        long key = chatKey(update);
+        while (true) {
+            ChatQueue queue = queues.computeIfAbsent(key, ChatQueue::new);
+            boolean startWorker;
+            synchronized (queue) {
+                if (queue.retired) {
+                    // The queue was removed after it drained; pick up its replacement.
+                    continue;
+                }
+                queue.pending.add(update);
+                startWorker = !queue.running;
+                queue.running = true;
+            }
+            dispatched.incrementAndGet();
+            if (startWorker) {
+                try {
+                    executor.execute(() -> drain(queue));
+                } catch (RejectedExecutionException e) {
+                    abandon(queue);
+                    throw e;
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Returns the number of updates currently waiting to be processed or being processed.
+     *
+     * @return The queue depth across all chats.
+     */
+    public int getQueuedCount() {
+        return capacity - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of chats that currently have updates queued.
+     *
+     * @return The number of active chat queues.
+     */
+    public int getActiveChatCount() {
+        return queues.size();
+    }
+
+    /**
+     * Returns the total number of updates accepted for processing.
+     *
+     * @return The dispatched update count.
+     */
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * Returns the number of updates discarded because the queue was full.
+     *
+     * @return The dropped update count.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private boolean reserveSlot(Update update) {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    permits.acquire();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            case REJECT -> {
+                dropped.incrementAndGet();
+                throw new RejectedExecutionException("Update queue is full, rejected update " + update.getUpdateId());
+            }
+            default -> {
+                // DROP_NEWEST falls through to the drop below.
+            }
+        }
+        dropped.incrementAndGet();
+        log.warn("Update queue is full, dropped update {}", update.getUpdateId());
+        return false;
+    }
+
+    /**
+     * Discards a queue whose worker could not be started, releasing the slots of its updates,
+     * so that the chat is not left with a queue that is marked running but never drained.
+     */
+    private void abandon(ChatQueue queue) {
+        int abandoned;
+        synchronized (queue) {
+            abandoned = queue.pending.size();
+            queue.pending.clear();
+            queue.running = false;
+            queue.retired = true;
+            queues.remove(queue.chatId, queue);
+        }
+        permits.release(abandoned);
+        dropped.addAndGet(abandoned);
+        log.warn("Executor rejected the worker of chat {}, dropped {} updates", queue.chatId, abandoned);
+    }
+
+    private void drain(ChatQueue queue) {
+        while (true) {
+            Update update;
+            synchronized (queue) {
+                update = queue.pending.poll();
+                if (update == null) {
+                    queue.running = false;
+                    queue.retired = true;
+                    queues.remove(queue.chatId, queue);
+                    return;
+                }
+            }
+            try {
+                handler.accept(update);
+            } catch (RuntimeException e) {
+                log.error("Failed to handle update {}: {}", update.getUpdateId(), e.getMessage(), e);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Determines the ordering key of an update: the chat it belongs to, or the user for
+     * updates that are not tied to a chat, such as inline queries.
+     *
+     * @param update The incoming update.
+     * @return The chat (or user) ID, or {@code 0} for updates with neither.
+     */
+    static long chatKey(Update update) {
+        Message message = null;
+        if (update.hasMessage()) {
+            message = update.getMessage();
+        } else if (update.hasEditedMessage()) {
+            message = update.getEditedMessage();
+        } else if (update.hasChannelPost()) {
+            message = update.getChannelPost();
+        } else if (update.hasEditedChannelPost()) {
+            message = update.getEditedChannelPost();
+        } else if (update.hasCallbackQuery()) {
+            if (update.getCallbackQuery().getMessage() != null) {
+                message = update.getCallbackQuery().getMessage();
+            } else if (update.getCallbackQuery().getFrom() != null) {
+                return update.getCallbackQuery().getFrom().getId();
+            }
+        } else if (update.hasChatMember()) {
+            return update.getChatMember().getChat().getId();
+        } else if (update.hasMyChatMember()) {
+            return update.getMyChatMember().getChat().getId();
+        } else if (update.hasChatJoinRequest()) {
+            return update.getChatJoinRequest().getChat().getId();
+        } else if (update.hasInlineQuery()) {
+            return update.getInlineQuery().getFrom().getId();
+        }
+        return message != null && message.getChatId() != null ? message.getChatId() : 0L;
+    }
+
+    private static final class ChatQueue {
+        private final long chatId;
+        private final ArrayDeque<Update> pending = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired;
+
+        private ChatQueue(long chatId) {
+            this.chatId = chatId;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package travel.letstrip.service;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * A processing stage that sees every update before the handlers of an {@link UpdateRouter},
+ * e.g. to drop spam. Filters are registered with {@link UpdateRouter#filter(UpdateFilter)}.
+ * <p>
+ * Filters run on the thread processing the update's chat, so they must be thread-safe.
+ */
+@FunctionalInterface
+public interface UpdateFilter {
+
+    /**
+     * Inspects an incoming update.
+     *
+     * @param update The incoming update.
+     * @param bot The bot that received the update.
+     * @return {@code true} to pass the update on, {@code false} to consume it.
+     */
+    boolean accept(Update update, TelegramBotService bot);
+}
@@ -0,0 +1,18 @@
+package travel.letstrip.service;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Application logic invoked for updates routed to it by an {@link UpdateRouter}.
+ */
+@FunctionalInterface
+public interface UpdateHandler {
+
+    /**
+     * Handles an update.
+     *
+     * @param update The incoming update.
+     * @param bot The bot that received the update, for sending replies.
+     */
+    void handle(Update update, TelegramBotService bot);
+}
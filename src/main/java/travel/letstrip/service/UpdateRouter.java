@@ -0,0 +1,194 @@
+package travel.letstrip.service;
+
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import travel.letstrip.enums.UpdateType;
+import travel.letstrip.utils.CallbackDataUtil;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry that routes incoming updates to application handlers.
+ * <p>
+ * Handlers can be registered for:
+ * <ul>
+ *     <li>a bot command such as {@code /start}, matched on text messages;</li>
+ *     <li>a callback command, i.e. the first part of the callback data as returned by
+ *     {@link CallbackDataUtil#getCommand(String)};</li>
+ *     <li>an {@link UpdateType}, receiving every update of that type not consumed by a
+ *     command or callback handler;</li>
+ *     <li>a fallback, receiving updates no other handler accepted.</li>
+ * </ul>
+ * Before any handler, the update passes through the registered {@link UpdateFilter}s, which
+ * may consume it.
+ * <p>
+ * Commands and callbacks are resolved with a single hash lookup and update types with an
+ * array index, so routing cost does not grow with the number of registered handlers.
+ * Registration is thread-safe and may happen while updates are being routed.
+ */
+public class UpdateRouter {
+    private static final UpdateHandler[] NO_HANDLERS = new UpdateHandler[0];
+    private static final UpdateFilter[] NO_FILTERS = new UpdateFilter[0];
+
+    private final Map<String, UpdateHandler> commandHandlers = new ConcurrentHashMap<>();
+    private final Map<String, UpdateHandler> callbackHandlers = new ConcurrentHashMap<>();
+    private volatile UpdateHandler[][] typeHandlers = new UpdateHandler[UpdateType.values().length][];
+    private volatile UpdateHandler fallbackHandler;
+    private volatile UpdateFilter[] filters = NO_FILTERS;
+
+    /**
+     * Constructs an empty UpdateRouter.
+     */
+    public UpdateRouter() {
+        Arrays.fill(typeHandlers, NO_HANDLERS);
+    }
+
+    /**
+     * Registers the handler for a bot command. A previously registered handler for the same
+     * command is replaced.
+     *
+     * @param command The command, with or without the leading slash (e.g., "start" or "/start").
+     * @param handler The handler to invoke.
+     * @return This router, for chaining.
+     */
+    public UpdateRouter onCommand(String command, UpdateHandler handler) {
+        String key = command.startsWith("/") ? command.substring(1) : command;
+        commandHandlers.put(key, handler);
+        return this;
+    }
+
+    /**
+     * Registers the handler for a callback command. A previously registered handler for the
+     * same command is replaced.
+     *
+     * @param command The callback command, i.e. the first part passed to {@link CallbackDataUtil#build(String...)}.
+     * @param handler The handler to invoke.
+     * @return This router, for chaining.
+     */
+    public UpdateRouter onCallback(String command, UpdateHandler handler) {
+        callbackHandlers.put(command, handler);
+        return this;
+    }
+
+    /**
+     * Adds a handler for every update of the given type that is not consumed by a command or
+     * callback handler. Several handlers may be registered for the same type; they are
+     * invoked in registration order.
+     *
+     * @param type The update type.
+     * @param handler The handler to invoke.
+     * @return This router, for chaining.
+     */
+    public synchronized UpdateRouter on(UpdateType type, UpdateHandler handler) {
+        UpdateHandler[][] copy = typeHandlers.clone();
+        UpdateHandler[] handlers = Arrays.copyOf(copy[type.ordinal()], copy[type.ordinal()].length + 1);
+        handlers[handlers.length - 1] = handler;
+        copy[type.ordinal()] = handlers;
+        typeHandlers = copy;
+        return this;
+    }
+
+    /**
+     * Adds a filter that sees every update before the handlers. Filters run in registration
+     * order; once one consumes an update, later filters and handlers do not see it.
+     *
+     * @param filter The filter to add.
+     * @return This router, for chaining.
+     */
+    public synchronized UpdateRouter filter(UpdateFilter filter) {
+        UpdateFilter[] copy = Arrays.copyOf(filters, filters.length + 1);
+        copy[copy.length - 1] = filter;
+        filters = copy;
+        return this;
+    }
+
+    /**
+     * Sets the handler for updates that no other handler accepted.
+     *
+     * @param handler The fallback handler, or {@code null} to ignore such updates.
+     * @return This router, for chaining.
+     */
+    public UpdateRouter otherwise(UpdateHandler handler) {
+        this.fallbackHandler = handler;
+        return this;
+    }
+
+    /**
+     * Routes an update to the matching handlers.
+     *
+     * @param update The incoming update.
+     * @param bot The bot that received the update.
+     * @return {@code true} if at least one handler was invoked or a filter consumed the update.
+     */
+    public boolean route(Update update, TelegramBotService bot) {
+        for (UpdateFilter filter : filters) {
+            if (!filter.accept(update, bot)) {
+                return true;
+            }
+        }
+        UpdateType type = UpdateType.of(update);
+
+        UpdateHandler handler = null;
+        if (type == UpdateType.MESSAGE) {
+            String command = commandOf(update.getMessage(), bot.getBotUsername());
+            if (command != null) {
+                handler = commandHandlers.get(command);
+            }
+        } else if (type == UpdateType.CALLBACK_QUERY) {
+            String command = CallbackDataUtil.getCommand(update.getCallbackQuery().getData());
+            if (command != null) {
+                handler = callbackHandlers.get(command);
+            }
+        }
+        if (handler != null) {
+            handler.handle(update, bot);
+            return true;
+        }
+
+        UpdateHandler[] handlers = typeHandlers[type.ordinal()];
+        for (UpdateHandler typeHandler : handlers) {
+            typeHandler.handle(update, bot);
+        }
+        if (handlers.length > 0) {
+            return true;
+        }
+
+        UpdateHandler fallback = fallbackHandler;
+        if (fallback != null) {
+            fallback.handle(update, bot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the command from a message such as {@code "/start@MyBot payload"}.
+     *
+     * @return The command without slash, or {@code null} if the message is not a command or
+     * is addressed to a different bot.
+     */
+    private static String commandOf(Message message, String botUsername) {
+        String text = message.getText();
+        if (text == null || text.length() < 2 || text.charAt(0) != '/') {
+            return null;
+        }
+        int end = 1;
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != '@') {
+            end++;
+        }
+        if (end < text.length() && text.charAt(end) == '@') {
+            int mentionEnd = end + 1;
+            while (mentionEnd < text.length() && !Character.isWhitespace(text.charAt(mentionEnd))) {
+                mentionEnd++;
+            }
+            String username = botUsername != null && botUsername.startsWith("@") ? botUsername.substring(1) : botUsername;
+            if (username == null || !text.regionMatches(true, end + 1, username, 0, mentionEnd - end - 1)
+                    || username.length() != mentionEnd - end - 1) {
+                return null;
+            }
+        }
+        return end > 1 ? text.substring(1, end) : null;
+    }
+}
@@ -1,6 +1,7 @@
 package travel.letstrip.utils;
 
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardButton;
@@ -9,6 +10,10 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.Keyboard
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Utility class for easily creating and configuring Telegram Inline and Reply Keyboards.
@@ -17,6 +22,11 @@ import java.util.List;
  */
 public class ButtonsUtil {
 
+    /** Maximum number of keyboards kept by {@link #cached(String, Supplier)}. */
+    public static final int MAX_CACHED_KEYBOARDS = 1024;
+
+    private static final Map<String, PrebuiltKeyboard> PREBUILT = new ConcurrentHashMap<>();
+
     private ButtonsUtil() {
         // Statik klass bo'lgani uchun konstruktor yopiq
     }
@@ -76,6 +86,37 @@ public class ButtonsUtil {
         return markup;
     }
 
+    /**
+     * Creates an InlineKeyboardMarkup arranging the buttons in a grid, filled row by row.
+     *
+     * @param buttons A list of InlineKeyboardButton objects.
+     * @param columns The number of buttons per row.
+     * @return The resulting InlineKeyboardMarkup.
+     */
+    public static InlineKeyboardMarkup createGrid(List<InlineKeyboardButton> buttons, int columns) {
+        if (columns <= 0) {
+            throw new IllegalArgumentException("Columns must be positive");
+        }
+        List<List<InlineKeyboardButton>> keyboard = new ArrayList<>((buttons.size() + columns - 1) / columns);
+        for (int i = 0; i < buttons.size(); i += columns) {
+            keyboard.add(new ArrayList<>(buttons.subList(i, Math.min(buttons.size(), i + columns))));
+        }
+        return createMarkup(keyboard);
+    }
+
+    /**
+     * Starts building a paginated grid keyboard over a long list of items.
+     *
+     * @param source Supplies the items of a page, e.g. from a database query with offset and limit.
+     * @param buttonFactory Creates the button of an item.
+     * @param <T> The type of the listed items.
+     * @return A new {@link PaginatedKeyboardBuilder}.
+     */
+    public static <T> PaginatedKeyboardBuilder<T> paginated(PaginatedKeyboardBuilder.PageSource<T> source,
+                                                            Function<? super T, InlineKeyboardButton> buttonFactory) {
+        return new PaginatedKeyboardBuilder<>(source, buttonFactory);
+    }
+
     // --- Reply Keyboard (Oddiy matn tugmalar) Yaratuvchi qismi ---
 
     /**
@@ -131,4 +172,65 @@ public class ButtonsUtil {
         markup.setOneTimeKeyboard(oneTimeKeyboard);
         return markup;
     }
-}
\ No newline at end of file
+
+    // --- Tayyor (oldindan yig'ilgan) klaviaturalar ---
+
+    /**
+     * Validates and serializes a keyboard once, for keyboards that are sent unchanged many
+     * times, such as a main menu.
+     *
+     * @param keyboard The keyboard to prebuild.
+     * @return An immutable {@link PrebuiltKeyboard} usable as reply markup.
+     * @throws IllegalArgumentException If the keyboard is invalid.
+     */
+    public static PrebuiltKeyboard prebuild(ReplyKeyboard keyboard) {
+        return PrebuiltKeyboard.of(keyboard);
+    }
+
+    /**
+     * Returns the keyboard prebuilt under a name, building it with the factory on first use.
+     * <p>
+     * Names are meant to be a fixed set, such as the menus of the bot. Once
+     * {@value #MAX_CACHED_KEYBOARDS} names are cached, keyboards under new names are built on
+     * every call and not kept; use {@link #removeCached(String)} to drop a keyboard that is
+     * no longer used.
+     *
+     * @param name The name identifying the keyboard, e.g. {@code "main-menu"}.
+     * @param factory Builds the keyboard; called at most once per cached name.
+     * @return The cached {@link PrebuiltKeyboard}.
+     * @throws IllegalArgumentException If the keyboard is invalid.
+     */
+    public static PrebuiltKeyboard cached(String name, Supplier<? extends ReplyKeyboard> factory) {
+        PrebuiltKeyboard keyboard = PREBUILT.get(name);
+        if (keyboard != null) {
+            return keyboard;
+        }
+        if (PREBUILT.size() >= MAX_CACHED_KEYBOARDS) {
+            return PrebuiltKeyboard.of(factory.get());
+        }
+        return PREBUILT.computeIfAbsent(name, key -> PrebuiltKeyboard.of(factory.get()));
+    }
+
+    /**
+     * Drops the keyboard cached under a name, e.g. after the menu it shows has changed.
+     * The next {@link #cached(String, Supplier)} call for the name builds it again.
+     *
+     * @param name The name identifying the keyboard.
+     * @return {@code true} if a keyboard was cached under the name.
+     */
+    public static boolean removeCached(String name) {
+        return PREBUILT.remove(name) != null;
+    }
+
+    /**
+     * Creates a template from a keyboard containing {@code ${name}} slots, for keyboards that
+     * differ only in a few values, such as an ID in callback data.
+     *
+     * @param keyboard The keyboard with slots.
+     * @return A {@link KeyboardTemplate} producing {@link PrebuiltKeyboard}s.
+     * @throws IllegalArgumentException If the keyboard is invalid.
+     */
+    public static KeyboardTemplate template(ReplyKeyboard keyboard) {
+        return KeyboardTemplate.of(keyboard);
+    }
+}
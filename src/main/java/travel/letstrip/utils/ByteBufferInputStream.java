@@ -0,0 +1,58 @@
+package travel.letstrip.utils;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} that reads the remaining bytes of a {@link ByteBuffer} without
+ * copying them to the heap first.
+ * <p>
+ * The stream reads from a duplicate of the buffer, so the position of the original buffer is
+ * left untouched and a fresh stream over the same content can be opened at any time, e.g.
+ * when an upload is retried. Direct and memory-mapped buffers are supported.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a stream over the bytes between the buffer's position and limit.
+     *
+     * @param buffer The buffer to read from.
+     */
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long count) {
+        int skipped = (int) Math.min(Math.max(count, 0), buffer.remaining());
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
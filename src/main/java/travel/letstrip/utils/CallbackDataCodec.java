@@ -0,0 +1,288 @@
+package travel.letstrip.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Compact binary encoding for typed callback data.
+ * <p>
+ * Encoded data has the form {@code COMMAND|PAYLOAD}, so {@link CallbackDataUtil#getCommand(String)}
+ * and command routing keep working. The payload packs the fields as varints (signed values
+ * zigzag-encoded first) and renders them in unpadded base64url. A chat ID that takes 14
+ * characters as text typically needs 7 to 8 here, so far more state fits within Telegram's
+ * 64-byte callback data limit.
+ * <p>
+ * Fields carry no type information: they must be read in the order and with the types they
+ * were written. The {@link Reader} decodes straight from the string without allocating.
+ * <pre>{@code
+ * String data = CallbackDataCodec.writer("book").writeLong(tourId).writeEnum(status).writeInt(page).encode();
+ * CallbackDataCodec.Reader reader = CallbackDataCodec.reader(data);
+ * long tourId = reader.readLong();
+ * }</pre>
+ */
+public class CallbackDataCodec {
+
+    /** Maximum length of callback data accepted by Telegram, in bytes. */
+    public static final int MAX_LENGTH = 64;
+
+    private static final char DELIMITER = '|';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private CallbackDataCodec() {
+        // Statik klass
+    }
+
+    /**
+     * Starts encoding callback data for a command.
+     *
+     * @param command The command, i.e. the part routed on by {@code UpdateRouter.onCallback}.
+     * @return A new {@link Writer}.
+     * @throws IllegalArgumentException If the command contains the delimiter.
+     */
+    public static Writer writer(String command) {
+        if (command.indexOf(DELIMITER) >= 0) {
+            throw new IllegalArgumentException("Command must not contain '" + DELIMITER + "': " + command);
+        }
+        return new Writer(command);
+    }
+
+    /**
+     * Starts decoding callback data produced by a {@link Writer}.
+     *
+     * @param callbackData The raw callback data string.
+     * @return A new {@link Reader} positioned at the first field.
+     */
+    public static Reader reader(String callbackData) {
+        int delimiter = callbackData == null ? -1 : callbackData.indexOf(DELIMITER);
+        return new Reader(callbackData == null ? "" : callbackData, delimiter < 0 ? 0 : delimiter + 1);
+    }
+
+    /**
+     * Appends typed fields and renders them as callback data.
+     */
+    public static final class Writer {
+        private final String command;
+        private byte[] bytes = new byte[32];
+        private int size;
+
+        private Writer(String command) {
+            this.command = command;
+        }
+
+        /**
+         * Appends a signed long, e.g. a chat or user ID.
+         *
+         * @param value The value.
+         * @return This writer, for chaining.
+         */
+        public Writer writeLong(long value) {
+            return writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        /**
+         * Appends a signed int, e.g. a page number or offset.
+         *
+         * @param value The value.
+         * @return This writer, for chaining.
+         */
+        public Writer writeInt(int value) {
+            return writeLong(value);
+        }
+
+        /**
+         * Appends an enum constant as its ordinal.
+         *
+         * @param value The constant.
+         * @return This writer, for chaining.
+         */
+        public Writer writeEnum(Enum<?> value) {
+            return writeUnsigned(value.ordinal());
+        }
+
+        /**
+         * Appends a boolean.
+         *
+         * @param value The value.
+         * @return This writer, for chaining.
+         */
+        public Writer writeBoolean(boolean value) {
+            return writeUnsigned(value ? 1 : 0);
+        }
+
+        /**
+         * Appends a string as its UTF-8 length followed by its bytes.
+         *
+         * @param value The value.
+         * @return This writer, for chaining.
+         */
+        public Writer writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(utf8.length);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+            return this;
+        }
+
+        /**
+         * Renders the callback data.
+         *
+         * @return The encoded callback data.
+         * @throws IllegalArgumentException If the result exceeds {@link #MAX_LENGTH} bytes.
+         */
+        public String encode() {
+            String data = command + DELIMITER + ENCODER.encodeToString(Arrays.copyOf(bytes, size));
+            // Base64 output is ASCII, so only the command can make the byte length exceed the char length.
+            if (data.length() > MAX_LENGTH || data.getBytes(StandardCharsets.UTF_8).length > MAX_LENGTH) {
+                throw new IllegalArgumentException("Callback data exceeds " + MAX_LENGTH + " bytes: " + data);
+            }
+            return data;
+        }
+
+        private Writer writeUnsigned(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * Reads typed fields back from callback data, decoding base64url on the fly.
+     */
+    public static final class Reader {
+        private final String data;
+        private int position;
+        private int bits;
+        private int bitCount;
+
+        private Reader(String data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        /**
+         * Reads a signed long written with {@link Writer#writeLong(long)}.
+         *
+         * @return The value.
+         * @throws IllegalArgumentException If the data is truncated or malformed.
+         */
+        public long readLong() {
+            long value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Reads a signed int written with {@link Writer#writeInt(int)}.
+         *
+         * @return The value.
+         * @throws IllegalArgumentException If the data is truncated or malformed.
+         */
+        public int readInt() {
+            return (int) readLong();
+        }
+
+        /**
+         * Reads an enum constant written with {@link Writer#writeEnum(Enum)}.
+         *
+         * @param values The constants of the enum, e.g. a cached copy of {@code MyEnum.values()}.
+         * @param <E> The enum type.
+         * @return The constant.
+         * @throws IllegalArgumentException If the data is truncated, malformed, or the ordinal is out of range.
+         */
+        public <E extends Enum<E>> E readEnum(E[] values) {
+            long ordinal = readUnsigned();
+            if (ordinal >= values.length) {
+                throw new IllegalArgumentException("Unknown enum ordinal " + ordinal);
+            }
+            return values[(int) ordinal];
+        }
+
+        /**
+         * Reads a boolean written with {@link Writer#writeBoolean(boolean)}.
+         *
+         * @return The value.
+         * @throws IllegalArgumentException If the data is truncated or malformed.
+         */
+        public boolean readBoolean() {
+            return readUnsigned() != 0;
+        }
+
+        /**
+         * Reads a string written with {@link Writer#writeString(String)}.
+         *
+         * @return The value.
+         * @throws IllegalArgumentException If the data is truncated or malformed.
+         */
+        public String readString() {
+            long length = readUnsigned();
+            if (length > MAX_LENGTH) {
+                throw new IllegalArgumentException("Invalid string length " + length);
+            }
+            byte[] utf8 = new byte[(int) length];
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = (byte) readByte();
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Indicates whether more fields can be read.
+         *
+         * @return {@code true} if at least one more byte is encoded.
+         */
+        public boolean hasRemaining() {
+            return bitCount >= 8 || (data.length() - position) * 6 + bitCount >= 8;
+        }
+
+        private long readUnsigned() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in callback data");
+        }
+
+        private int readByte() {
+            while (bitCount < 8) {
+                if (position >= data.length()) {
+                    throw new IllegalArgumentException("Truncated callback data");
+                }
+                char c = data.charAt(position++);
+                int digit = c < 128 ? DECODE_TABLE[c] : -1;
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid character in callback data: " + c);
+                }
+                bits = (bits << 6) | digit;
+                bitCount += 6;
+            }
+            bitCount -= 8;
+            int b = (bits >>> bitCount) & 0xFF;
+            bits &= (1 << bitCount) - 1;
+            return b;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package travel.letstrip.utils;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -9,10 +9,15 @@ import java.util.List;
  * It uses a simple delimiter (default: '|') to separate different parts of the data.
  * <p>
  * Format: COMMAND|ID|PAGE_NUMBER...
+ * <p>
+ * Parts are located by scanning the string for the delimiter, without regular expressions
+ * or intermediate lists, because callback data is parsed on every button press. For typed
+ * state that does not fit the 64-byte limit as plain text, see {@link CallbackDataCodec}.
  */
 public class CallbackDataUtil {
 
     private static final String DELIMITER = "|";
+    private static final char DELIMITER_CHAR = '|';
 
     private CallbackDataUtil() {
         // Statik klass
@@ -35,15 +40,24 @@ public class CallbackDataUtil {
 
     /**
      * Splits a callback data string into a list of its components based on the delimiter.
+     * As with {@link String#split(String)}, trailing empty parts are dropped.
      *
      * @param callbackData The raw callback data string received from Telegram.
      * @return A List of strings representing the parts of the callback data.
      */
     public static List<String> parse(String callbackData) {
-        if (callbackData == null || callbackData.isEmpty()) {
+        int count = getPartCount(callbackData);
+        if (count == 0) {
             return Collections.emptyList();
         }
-        return Arrays.asList(callbackData.split("\\" + DELIMITER));
+        List<String> parts = new ArrayList<>(count);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = partEnd(callbackData, start);
+            parts.add(callbackData.substring(start, end));
+            start = end + 1;
+        }
+        return parts;
     }
 
     /**
@@ -53,22 +67,118 @@ public class CallbackDataUtil {
      * @return The command string, or null if the data is empty.
      */
     public static String getCommand(String callbackData) {
-        List<String> parts = parse(callbackData);
-        return parts.isEmpty() ? null : parts.get(0);
+        return getPart(callbackData, 0);
     }
 
     /**
      * Extracts a specific part of the callback data by its index.
+     * <p>
+     * The data is scanned in place, so apart from the returned string nothing is allocated.
      *
      * @param callbackData The raw callback data string.
      * @param index The zero-based index of the part to retrieve (0 is command, 1 is first argument, etc.).
      * @return The string part at the specified index, or null if the index is out of bounds.
      */
     public static String getPart(String callbackData, int index) {
-        List<String> parts = parse(callbackData);
-        if (index >= 0 && index < parts.size()) {
-            return parts.get(index);
+        int start = partStart(callbackData, index);
+        return start < 0 ? null : callbackData.substring(start, partEnd(callbackData, start));
+    }
+
+    /**
+     * Extracts a numeric part of the callback data by its index, without creating an
+     * intermediate string.
+     *
+     * @param callbackData The raw callback data string.
+     * @param index The zero-based index of the part to retrieve.
+     * @param defaultValue The value to return if the part is missing or not a valid number.
+     * @return The parsed part, or {@code defaultValue}.
+     */
+    public static long getLongPart(String callbackData, int index, long defaultValue) {
+        int start = partStart(callbackData, index);
+        if (start < 0) {
+            return defaultValue;
+        }
+        int end = partEnd(callbackData, start);
+        try {
+            return Long.parseLong(callbackData, start, end, 10);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Checks whether the callback data starts with the given command, without extracting it.
+     *
+     * @param callbackData The raw callback data string.
+     * @param command The command to compare with.
+     * @return {@code true} if the first part of the data equals {@code command}.
+     */
+    public static boolean isCommand(String callbackData, String command) {
+        if (callbackData == null || command == null || command.isEmpty()) {
+            return false;
+        }
+        int length = command.length();
+        return callbackData.startsWith(command)
+                && (callbackData.length() == length || callbackData.charAt(length) == DELIMITER_CHAR);
+    }
+
+    /**
+     * Returns the number of parts in the callback data, i.e. the size of the list returned by
+     * {@link #parse(String)}.
+     *
+     * @param callbackData The raw callback data string.
+     * @return The number of parts.
+     */
+    public static int getPartCount(String callbackData) {
+        if (callbackData == null) {
+            return 0;
+        }
+        // Parts after the last non-delimiter character are empty and dropped, like String.split.
+        int last = callbackData.length() - 1;
+        while (last >= 0 && callbackData.charAt(last) == DELIMITER_CHAR) {
+            last--;
+        }
+        if (last < 0) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < last; i++) {
+            if (callbackData.charAt(i) == DELIMITER_CHAR) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds where the part with the given index starts.
+     *
+     * @return The start offset, or {@code -1} if there is no such part.
+     */
+    private static int partStart(String callbackData, int index) {
+        if (callbackData == null || index < 0) {
+            return -1;
         }
-        return null;
+        int length = callbackData.length();
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int end = callbackData.indexOf(DELIMITER_CHAR, start);
+            if (end < 0) {
+                return -1;
+            }
+            start = end + 1;
+        }
+        // An empty part only counts if a non-empty part follows it.
+        for (int i = start; i < length; i++) {
+            if (callbackData.charAt(i) != DELIMITER_CHAR) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private static int partEnd(String callbackData, int start) {
+        int end = callbackData.indexOf(DELIMITER_CHAR, start);
+        return end < 0 ? callbackData.length() : end;
     }
-}
\ No newline at end of file
+}
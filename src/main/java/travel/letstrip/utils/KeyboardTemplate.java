@@ -0,0 +1,167 @@
+package travel.letstrip.utils;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A keyboard serialized once, with named slots filled in per send.
+ * <p>
+ * Slots are written as {@code ${name}} anywhere in button texts, callback data, or URLs of
+ * the keyboard passed to {@link ButtonsUtil#template(ReplyKeyboard)}. The keyboard is
+ * validated and serialized once; {@link #fill(String...)} then only concatenates the
+ * pre-serialized JSON fragments with the escaped values.
+ * <pre>{@code
+ * KeyboardTemplate booking = ButtonsUtil.template(ButtonsUtil.createMarkupFromList(List.of(
+ *         ButtonsUtil.createInlineButton("Book ${tour}", "book|${id}"))));
+ * message.setReplyMarkup(booking.fill("Samarkand", "42"));
+ * }</pre>
+ * Filled values are not validated again, so callers must keep callback data within
+ * Telegram's 64-byte limit.
+ */
+public final class KeyboardTemplate {
+
+    private final String[] fragments;
+    private final int[] slotIndexes;
+    private final List<String> slotNames;
+    private final PrebuiltKeyboard constant;
+
+    private KeyboardTemplate(String[] fragments, int[] slotIndexes, List<String> slotNames) {
+        this.fragments = fragments;
+        this.slotIndexes = slotIndexes;
+        this.slotNames = slotNames;
+        this.constant = slotIndexes.length == 0 ? new PrebuiltKeyboard(fragments[0]) : null;
+    }
+
+    /**
+     * Validates and serializes a keyboard containing {@code ${name}} slots.
+     *
+     * @param keyboard The keyboard.
+     * @return A new {@link KeyboardTemplate}.
+     * @throws IllegalArgumentException If the keyboard is invalid.
+     */
+    static KeyboardTemplate of(ReplyKeyboard keyboard) {
+        String json = PrebuiltKeyboard.toJson(keyboard);
+        List<String> fragments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int literalStart = 0;
+        int i = json.indexOf("${");
+        while (i >= 0) {
+            int end = i + 2;
+            while (end < json.length() && isNameChar(json.charAt(end))) {
+                end++;
+            }
+            if (end > i + 2 && end < json.length() && json.charAt(end) == '}') {
+                String name = json.substring(i + 2, end);
+                int index = names.indexOf(name);
+                if (index < 0) {
+                    index = names.size();
+                    names.add(name);
+                }
+                fragments.add(json.substring(literalStart, i));
+                slots.add(index);
+                literalStart = end + 1;
+                i = json.indexOf("${", literalStart);
+            } else {
+                i = json.indexOf("${", i + 2);
+            }
+        }
+        fragments.add(json.substring(literalStart));
+        return new KeyboardTemplate(fragments.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), Collections.unmodifiableList(names));
+    }
+
+    /**
+     * Returns the slot names in the order expected by {@link #fill(String...)}, i.e. the
+     * order of their first appearance in the keyboard.
+     *
+     * @return The slot names.
+     */
+    public List<String> getSlotNames() {
+        return slotNames;
+    }
+
+    /**
+     * Fills the slots with values given in the order of {@link #getSlotNames()}.
+     *
+     * @param values The slot values.
+     * @return The filled keyboard.
+     * @throws IllegalArgumentException If the number of values does not match the number of slots.
+     */
+    public PrebuiltKeyboard fill(String... values) {
+        if (values.length != slotNames.size()) {
+            throw new IllegalArgumentException("Expected " + slotNames.size() + " values for slots " + slotNames
+                    + ", got " + values.length);
+        }
+        if (constant != null) {
+            return constant;
+        }
+        StringBuilder json = new StringBuilder(estimateLength(values));
+        for (int i = 0; i < slotIndexes.length; i++) {
+            json.append(fragments[i]);
+            appendEscaped(json, values[slotIndexes[i]]);
+        }
+        json.append(fragments[fragments.length - 1]);
+        return new PrebuiltKeyboard(json.toString());
+    }
+
+    /**
+     * Fills the slots with values looked up by slot name.
+     *
+     * @param values The slot values by name.
+     * @return The filled keyboard.
+     * @throws IllegalArgumentException If a value is missing.
+     */
+    public PrebuiltKeyboard fill(Map<String, String> values) {
+        String[] ordered = new String[slotNames.size()];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = values.get(slotNames.get(i));
+            if (ordered[i] == null) {
+                throw new IllegalArgumentException("No value for slot " + slotNames.get(i));
+            }
+        }
+        return fill(ordered);
+    }
+
+    private int estimateLength(String[] values) {
+        int length = 0;
+        for (String fragment : fragments) {
+            length += fragment.length();
+        }
+        for (int index : slotIndexes) {
+            length += values[index].length() + 8;
+        }
+        return length;
+    }
+
+    private static boolean isNameChar(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Appends a value escaped for use inside a JSON string literal.
+     */
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
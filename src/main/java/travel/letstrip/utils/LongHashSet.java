@@ -0,0 +1,205 @@
+package travel.letstrip.utils;
+
+import java.util.Arrays;
+
+/**
+ * A compact hash set of primitive {@code long} values.
+ * <p>
+ * Values are stored in a single open-addressing {@code long[]} table with linear probing,
+ * which is rehashed once it is more than half full. The table therefore runs at a load of
+ * 0.25 to 0.5, and each member costs 16 to 32 bytes instead of the ~50 bytes of a boxed
+ * {@code Long} in a {@code HashSet}. The value {@code 0} is used as the empty-slot marker and is tracked
+ * separately.
+ * <p>
+ * This class is not thread-safe; callers are expected to synchronize externally.
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * Constructs an empty set with a small default capacity.
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Constructs an empty set sized to hold the expected number of values without resizing.
+     *
+     * @param expectedSize The expected number of values.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add.
+     * @return {@code true} if the value was not already present.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slot(value);
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a value is in the set.
+     *
+     * @param value The value to look for.
+     * @return {@code true} if the value is present.
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        for (int slot = slot(value); table[slot] != 0; slot = (slot + 1) & mask) {
+            if (table[slot] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value The value to remove.
+     * @return {@code true} if the value was present.
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int slot = slot(value);
+        while (table[slot] != value) {
+            if (table[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = 0;
+        size--;
+        shiftBack(slot);
+        return true;
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return The set size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the set is empty.
+     *
+     * @return {@code true} if the set holds no values.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copies the values into a new array, in no particular order.
+     *
+     * @return An array containing every value of the set.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsZero) {
+            result[i++] = 0;
+        }
+        for (long value : table) {
+            if (value != 0) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes every value from the set, keeping the allocated table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        containsZero = false;
+    }
+
+    /**
+     * Closes the gap left by a removed value so that probe sequences stay unbroken
+     * (backward-shift deletion for linear probing).
+     */
+    private void shiftBack(int freed) {
+        int slot = (freed + 1) & mask;
+        while (table[slot] != 0) {
+            int home = slot(table[slot]);
+            // Move the value into the free slot if its home position is not between the free slot and its current slot.
+            if (((slot - home) & mask) >= ((slot - freed) & mask)) {
+                table[freed] = table[slot];
+                table[slot] = 0;
+                freed = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int slot = slot(value);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+
+    private int slot(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,386 @@
+package travel.letstrip.utils;
+
+import org.telegram.telegrambots.meta.api.methods.ParseMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a text that exceeds Telegram's length limit into chunks that can be sent as separate
+ * messages.
+ * <p>
+ * Chunks end at the best boundary available, in this order of preference: a blank line, a
+ * line break, the end of a sentence, a space, and finally any position that does not fall
+ * inside a tag, an HTML entity, an escape sequence or a Markdown link. A boundary is only
+ * taken if it leaves the chunk at least half full, so a single early paragraph break does
+ * not produce a tiny chunk.
+ * <p>
+ * Formatting stays valid for the {@link ParseMode} of the text: when a chunk ends inside
+ * formatted text (e.g. {@code <b>...</b>} or {@code *...*}), the open entities are closed at
+ * the end of the chunk and opened again at the start of the next one, and the added markup
+ * counts towards the limit. Lengths are measured on the text including markup, which is
+ * never less than what Telegram counts after parsing it.
+ * <p>
+ * The splitter is an {@link Iterator}: chunks are produced on demand, in a single pass over
+ * the text, and each character is copied once, into the chunk it ends up in. This class is
+ * not thread-safe.
+ * <pre>{@code
+ * for (String chunk : MessageSplitter.split(report, ParseMode.HTML, MessageSplitter.MAX_MESSAGE_LENGTH)) {
+ *     ...
+ * }
+ * }</pre>
+ */
+public class MessageSplitter implements Iterator<String> {
+
+    /** Maximum length of a message text accepted by Telegram. */
+    public static final int MAX_MESSAGE_LENGTH = 4096;
+
+    /** Maximum length of a media caption accepted by Telegram. */
+    public static final int MAX_CAPTION_LENGTH = 1024;
+
+    private static final int PARAGRAPH = 0;
+    private static final int LINE = 1;
+    private static final int SENTENCE = 2;
+    private static final int WORD = 3;
+    private static final int BOUNDARY = 4;
+
+    private enum Syntax { PLAIN, HTML, MARKDOWN, MARKDOWN_V2 }
+
+    private final String text;
+    private final Syntax syntax;
+    private final int maxLength;
+
+    private int start;
+    private Markup startMarkup;
+    private int position;
+    private Markup markup;
+    private char lastChar;
+    private final int[] breakPositions = new int[BOUNDARY + 1];
+    private final Markup[] breakMarkups = new Markup[BOUNDARY + 1];
+
+    /** Result of {@link #scanToken(int)}: the markup that is open after the token. */
+    private Markup tokenMarkup;
+    /** Result of {@link #scanToken(int)}: whether the token is visible text rather than markup. */
+    private boolean tokenIsText;
+
+    /**
+     * Index of the first {@code >} at or after the last {@code <} scanned, or {@code -1} if there
+     * is none, so that the rest of the text is searched at most once per tag rather than once per {@code <}.
+     */
+    private int nextTagEnd;
+    /** Index from which no Markdown link target is closed by {@code )}, or {@code -1} if not known. */
+    private int unclosedLinkFrom = -1;
+
+    /**
+     * Constructs a splitter over a text.
+     *
+     * @param text The text to split.
+     * @param parseMode The parse mode of the text ({@link ParseMode#HTML}, {@link ParseMode#MARKDOWN}
+     *                  or {@link ParseMode#MARKDOWNV2}), or {@code null} for plain text.
+     * @param maxLength The maximum length of a chunk returned by {@link #next()}.
+     */
+    public MessageSplitter(String text, String parseMode, int maxLength) {
+        this.text = text;
+        this.syntax = syntaxOf(parseMode);
+        this.maxLength = maxLength;
+        this.nextTagEnd = syntax == Syntax.HTML ? text.indexOf('>') : -1;
+        Arrays.fill(breakPositions, -1);
+    }
+
+    /**
+     * Splits a text into chunks.
+     *
+     * @param text The text to split.
+     * @param parseMode The parse mode of the text, or {@code null} for plain text.
+     * @param maxLength The maximum length of a chunk, e.g. {@link #MAX_MESSAGE_LENGTH}.
+     * @return The chunks, or a list holding only {@code text} if it fits.
+     */
+    public static List<String> split(String text, String parseMode, int maxLength) {
+        if (text.length() <= maxLength) {
+            return List.of(text);
+        }
+        List<String> chunks = new ArrayList<>();
+        new MessageSplitter(text, parseMode, maxLength).forEachRemaining(chunks::add);
+        return chunks;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return start < text.length();
+    }
+
+    @Override
+    public String next() {
+        return next(maxLength);
+    }
+
+    /**
+     * Returns the next chunk, with a limit differing from the one given to the constructor,
+     * e.g. to fill a caption before continuing in regular messages.
+     *
+     * @param maxLength The maximum length of the chunk.
+     * @return The chunk.
+     * @throws NoSuchElementException If the whole text has been returned.
+     */
+    public String next(int maxLength) {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int prefixLength = startMarkup == null ? 0 : startMarkup.openLength;
+        while (position < text.length()) {
+            int end = scanToken(position);
+            if (prefixLength + (end - start) + closeLength(tokenMarkup) > maxLength && position > start) {
+                return cut(maxLength - prefixLength);
+            }
+            commit(end);
+        }
+        StringBuilder chunk = new StringBuilder(prefixLength + text.length() - start);
+        appendOpen(chunk, startMarkup);
+        chunk.append(text, start, text.length());
+        start = text.length();
+        return chunk.toString();
+    }
+
+    /**
+     * Ends the current chunk at the best recorded boundary.
+     */
+    private String cut(int budget) {
+        int kind = -1;
+        for (int k = PARAGRAPH; k <= WORD && kind < 0; k++) {
+            if (breakPositions[k] > start && breakPositions[k] - start >= budget / 2) {
+                kind = k;
+            }
+        }
+        if (kind < 0 && breakPositions[BOUNDARY] > start) {
+            kind = BOUNDARY;
+        }
+        // Without any boundary (e.g. one huge link), the chunk ends where the limit is reached.
+        int end = kind >= 0 ? breakPositions[kind] : position;
+        Markup endMarkup = kind >= 0 ? breakMarkups[kind] : markup;
+
+        StringBuilder chunk = new StringBuilder(budget + closeLength(endMarkup) + (startMarkup == null ? 0 : startMarkup.openLength));
+        appendOpen(chunk, startMarkup);
+        chunk.append(text, start, end);
+        for (Markup m = endMarkup; m != null; m = m.parent) {
+            chunk.append(m.close);
+        }
+        start = end;
+        startMarkup = endMarkup;
+        return chunk.toString();
+    }
+
+    /**
+     * Consumes the token scanned last and records the boundary after it.
+     */
+    private void commit(int end) {
+        char first = text.charAt(position);
+        position = end;
+        markup = tokenMarkup;
+        if (markup != null && !markup.breakable) {
+            return;
+        }
+        record(BOUNDARY);
+        if (tokenIsText) {
+            if (first == '\n') {
+                record(lastChar == '\n' ? PARAGRAPH : LINE);
+            } else if (first == ' ' || first == '\t') {
+                if (lastChar == '.' || lastChar == '!' || lastChar == '?' || lastChar == '…') {
+                    record(SENTENCE);
+                }
+                record(WORD);
+            }
+            lastChar = first;
+        }
+    }
+
+    private void record(int kind) {
+        breakPositions[kind] = position;
+        breakMarkups[kind] = markup;
+    }
+
+    /**
+     * Determines the end of the token starting at {@code i} and the markup open after it.
+     *
+     * @return The index after the token.
+     */
+    private int scanToken(int i) {
+        tokenMarkup = markup;
+        tokenIsText = true;
+        char c = text.charAt(i);
+        int end = switch (syntax) {
+            case HTML -> scanHtml(i, c);
+            case MARKDOWN, MARKDOWN_V2 -> scanMarkdown(i, c);
+            default -> -1;
+        };
+        if (end > 0) {
+            return end;
+        }
+        tokenIsText = true;
+        tokenMarkup = markup;
+        return Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1)) ? i + 2 : i + 1;
+    }
+
+    private int scanHtml(int i, char c) {
+        if (c == '&') {
+            // Entities are short, so a lone '&' does not cost a search through the rest of the text.
+            int limit = Math.min(text.length(), i + 11);
+            for (int j = i + 1; j < limit; j++) {
+                if (text.charAt(j) == ';') {
+                    return j + 1;
+                }
+            }
+            return -1;
+        }
+        if (c != '<') {
+            return -1;
+        }
+        if (nextTagEnd >= 0 && nextTagEnd < i) {
+            nextTagEnd = text.indexOf('>', i);
+        }
+        int close = nextTagEnd;
+        if (close < 0) {
+            return -1;
+        }
+        tokenIsText = false;
+        boolean closing = i + 1 < close && text.charAt(i + 1) == '/';
+        int nameStart = closing ? i + 2 : i + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < close && !Character.isWhitespace(text.charAt(nameEnd)) && text.charAt(nameEnd) != '/') {
+            nameEnd++;
+        }
+        String name = text.substring(nameStart, nameEnd).toLowerCase();
+        if (closing) {
+            tokenMarkup = popTo(markup, name);
+        } else if (text.charAt(close - 1) != '/') {
+            tokenMarkup = push(markup, name, text.substring(i, close + 1), "</" + name + ">", true, "pre".equals(name) || "code".equals(name));
+        }
+        return close + 1;
+    }
+
+    private int scanMarkdown(int i, char c) {
+        boolean v2 = syntax == Syntax.MARKDOWN_V2;
+        if (c == '\\' && i + 1 < text.length()) {
+            return i + 2;
+        }
+        boolean inCode = markup != null && markup.code;
+        if (text.startsWith("```", i)) {
+            tokenIsText = false;
+            if (inCode) {
+                tokenMarkup = "```".equals(markup.name) ? markup.parent : markup;
+                return i + 3;
+            }
+            // The language line belongs to the opening marker, so it is repeated when the block is reopened.
+            int end = i + 3;
+            while (end < text.length() && isLanguageChar(text.charAt(end))) {
+                end++;
+            }
+            end = end < text.length() && text.charAt(end) == '\n' ? end + 1 : i + 3;
+            tokenMarkup = push(markup, "```", text.substring(i, end), "```", true, true);
+            return end;
+        }
+        if (c == '`') {
+            tokenIsText = false;
+            tokenMarkup = inCode ? ("`".equals(markup.name) ? markup.parent : markup) : push(markup, "`", "`", "`", true, true);
+            return i + 1;
+        }
+        if (inCode) {
+            return -1;
+        }
+        String marker = null;
+        if (v2 && (text.startsWith("||", i) || text.startsWith("__", i))) {
+            marker = text.substring(i, i + 2);
+        } else if (c == '*' || c == '_' || (v2 && c == '~')) {
+            marker = String.valueOf(c);
+        }
+        if (marker != null) {
+            tokenIsText = false;
+            tokenMarkup = markup != null && marker.equals(markup.name) ? markup.parent : push(markup, marker, marker, marker, true, false);
+            return i + marker.length();
+        }
+        if (c == '[') {
+            tokenIsText = false;
+            tokenMarkup = push(markup, "[", "", "", false, false);
+            return i + 1;
+        }
+        if (c == ']' && markup != null && findOpen(markup, "[") != null) {
+            tokenIsText = false;
+            tokenMarkup = popTo(markup, "[");
+            if (text.startsWith("(", i + 1) && (unclosedLinkFrom < 0 || i + 2 < unclosedLinkFrom)) {
+                for (int j = i + 2; j < text.length(); j++) {
+                    char u = text.charAt(j);
+                    if (u == '\\' && v2) {
+                        j++;
+                    } else if (u == ')') {
+                        return j + 1;
+                    }
+                }
+                unclosedLinkFrom = i + 2;
+            }
+            return i + 1;
+        }
+        return -1;
+    }
+
+    private static boolean isLanguageChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '+' || c == '#';
+    }
+
+    private static Markup push(Markup parent, String name, String open, String close, boolean breakable, boolean code) {
+        return new Markup(name, open, close, parent,
+                (parent == null ? 0 : parent.openLength) + open.length(),
+                (parent == null ? 0 : parent.closeLength) + close.length(),
+                breakable && (parent == null || parent.breakable), code);
+    }
+
+    private static Markup findOpen(Markup markup, String name) {
+        for (Markup m = markup; m != null; m = m.parent) {
+            if (m.name.equals(name)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes the innermost open entity with the given name and everything opened inside it.
+     */
+    private static Markup popTo(Markup markup, String name) {
+        Markup open = findOpen(markup, name);
+        return open != null ? open.parent : markup;
+    }
+
+    private static int closeLength(Markup markup) {
+        return markup == null ? 0 : markup.closeLength;
+    }
+
+    private static void appendOpen(StringBuilder chunk, Markup markup) {
+        if (markup != null) {
+            appendOpen(chunk, markup.parent);
+            chunk.append(markup.open);
+        }
+    }
+
+    private static Syntax syntaxOf(String parseMode) {
+        if (ParseMode.HTML.equalsIgnoreCase(parseMode)) {
+            return Syntax.HTML;
+        }
+        if (ParseMode.MARKDOWNV2.equalsIgnoreCase(parseMode)) {
+            return Syntax.MARKDOWN_V2;
+        }
+        if (ParseMode.MARKDOWN.equalsIgnoreCase(parseMode)) {
+            return Syntax.MARKDOWN;
+        }
+        return Syntax.PLAIN;
+    }
+
+    /**
+     * An open formatting entity. Entities form an immutable stack through {@code parent}, so
+     * the state at a boundary can be remembered without copying.
+     */
+    private record Markup(String name, String open, String close, Markup parent,
+                          int openLength, int closeLength, boolean breakable, boolean code) {
+    }
+}
@@ -0,0 +1,197 @@
+package travel.letstrip.utils;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Builds one page of an inline keyboard over a long list of options, laid out as a grid
+ * with previous/next navigation buttons.
+ * <p>
+ * Items are fetched from a {@link PageSource} one page at a time, so only the buttons of the
+ * requested page are ever created. The navigation buttons carry callback data built with
+ * {@link CallbackDataUtil#build(String...)} in the form {@code COMMAND|PAGE|EXTRA...}; the
+ * handler registered for {@code COMMAND} reads the page back with {@link #pageOf(String)}.
+ * <pre>{@code
+ * PaginatedKeyboardBuilder<Tour> tours = ButtonsUtil.paginated(
+ *                 (offset, limit) -> tourRepository.find(offset, limit),
+ *                 tour -> ButtonsUtil.createInlineButton(tour.getName(), CallbackDataUtil.build("tour", String.valueOf(tour.getId()))))
+ *         .columns(2)
+ *         .pageSize(10)
+ *         .navigation("tours");
+ * message.setReplyMarkup(tours.build(PaginatedKeyboardBuilder.pageOf(callbackData)));
+ * }</pre>
+ * {@link #build(int)} does not modify the builder, so a configured builder can be shared between threads.
+ *
+ * @param <T> The type of the listed items.
+ */
+public class PaginatedKeyboardBuilder<T> {
+
+    /**
+     * Supplies the items of one page.
+     *
+     * @param <T> The type of the listed items.
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+
+        /**
+         * Fetches a slice of the items.
+         *
+         * @param offset The index of the first item to fetch.
+         * @param limit The maximum number of items to fetch.
+         * @return Up to {@code limit} items; fewer if the list ends.
+         */
+        List<T> fetch(int offset, int limit);
+
+        /**
+         * Creates a source over an in-memory list, returning views of it without copying.
+         *
+         * @param items The items.
+         * @param <T> The type of the items.
+         * @return A new {@link PageSource}.
+         */
+        static <T> PageSource<T> ofList(List<T> items) {
+            return (offset, limit) -> offset >= items.size()
+                    ? List.of()
+                    : items.subList(offset, Math.min(items.size(), offset + limit));
+        }
+    }
+
+    private final PageSource<T> source;
+    private final Function<? super T, InlineKeyboardButton> buttonFactory;
+    private int columns = 1;
+    private int pageSize = 10;
+    private String command;
+    private String[] extraParts = new String[0];
+    private String previousText = "« Prev";
+    private String nextText = "Next »";
+
+    /**
+     * Constructs a new PaginatedKeyboardBuilder.
+     *
+     * @param source Supplies the items of a page.
+     * @param buttonFactory Creates the button of an item.
+     */
+    public PaginatedKeyboardBuilder(PageSource<T> source, Function<? super T, InlineKeyboardButton> buttonFactory) {
+        this.source = source;
+        this.buttonFactory = buttonFactory;
+    }
+
+    /**
+     * Sets the number of buttons per row.
+     *
+     * @param columns The number of columns; {@code 1} by default.
+     * @return This builder, for chaining.
+     */
+    public PaginatedKeyboardBuilder<T> columns(int columns) {
+        if (columns <= 0) {
+            throw new IllegalArgumentException("Columns must be positive");
+        }
+        this.columns = columns;
+        return this;
+    }
+
+    /**
+     * Sets the number of items per page.
+     *
+     * @param pageSize The page size; {@code 10} by default.
+     * @return This builder, for chaining.
+     */
+    public PaginatedKeyboardBuilder<T> pageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Sets the callback command of the navigation buttons. Without a command no navigation
+     * buttons are added.
+     *
+     * @param command The callback command handling page changes.
+     * @param extraParts Additional parts appended after the page number, e.g. a filter.
+     * @return This builder, for chaining.
+     */
+    public PaginatedKeyboardBuilder<T> navigation(String command, String... extraParts) {
+        this.command = command;
+        this.extraParts = extraParts.clone();
+        return this;
+    }
+
+    /**
+     * Sets the texts of the navigation buttons.
+     *
+     * @param previousText The text of the previous-page button.
+     * @param nextText The text of the next-page button.
+     * @return This builder, for chaining.
+     */
+    public PaginatedKeyboardBuilder<T> labels(String previousText, String nextText) {
+        this.previousText = previousText;
+        this.nextText = nextText;
+        return this;
+    }
+
+    /**
+     * Builds the keyboard of one page.
+     *
+     * @param page The zero-based page number; negative values are treated as {@code 0}.
+     * @return The keyboard with the page's items and the navigation row.
+     */
+    public InlineKeyboardMarkup build(int page) {
+        page = Math.max(page, 0);
+        long offset = (long) page * pageSize;
+        if (offset > Integer.MAX_VALUE - pageSize - 1) {
+            throw new IllegalArgumentException("Page out of range: " + page);
+        }
+        // One extra item tells whether a next page exists without counting the whole list.
+        List<T> items = source.fetch((int) offset, pageSize + 1);
+        boolean hasNext = items.size() > pageSize;
+        int count = Math.min(items.size(), pageSize);
+
+        List<List<InlineKeyboardButton>> keyboard = new ArrayList<>((count + columns - 1) / columns + 1);
+        List<InlineKeyboardButton> row = null;
+        for (int i = 0; i < count; i++) {
+            if (i % columns == 0) {
+                row = new ArrayList<>(columns);
+                keyboard.add(row);
+            }
+            row.add(buttonFactory.apply(items.get(i)));
+        }
+
+        if (command != null && (page > 0 || hasNext)) {
+            List<InlineKeyboardButton> navigation = new ArrayList<>(2);
+            if (page > 0) {
+                navigation.add(ButtonsUtil.createInlineButton(previousText, pageData(page - 1)));
+            }
+            if (hasNext) {
+                navigation.add(ButtonsUtil.createInlineButton(nextText, pageData(page + 1)));
+            }
+            keyboard.add(navigation);
+        }
+        return ButtonsUtil.createMarkup(keyboard);
+    }
+
+    /**
+     * Reads the page number from the callback data of a navigation button.
+     *
+     * @param callbackData The raw callback data string.
+     * @return The page number, or {@code 0} if the data holds none.
+     */
+    public static int pageOf(String callbackData) {
+        long page = CallbackDataUtil.getLongPart(callbackData, 1, 0);
+        return page < 0 || page > Integer.MAX_VALUE ? 0 : (int) page;
+    }
+
+    private String pageData(int page) {
+        String[] parts = new String[extraParts.length + 2];
+        parts[0] = command;
+        parts[1] = Integer.toString(page);
+        System.arraycopy(extraParts, 0, parts, 2, extraParts.length);
+        return CallbackDataUtil.build(parts);
+    }
+}
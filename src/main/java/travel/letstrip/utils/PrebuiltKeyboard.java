@@ -0,0 +1,96 @@
+package travel.letstrip.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.io.IOException;
+
+/**
+ * An immutable keyboard whose JSON is produced once, when it is built.
+ * <p>
+ * It can be used anywhere a {@link ReplyKeyboard} is accepted, e.g.
+ * {@code SendMessage.setReplyMarkup}. When the request is sent, the stored JSON is written
+ * as is, so a menu shared by thousands of users costs neither object building nor Jackson
+ * serialization per send. Create instances with {@link ButtonsUtil#prebuild(ReplyKeyboard)}
+ * or {@link KeyboardTemplate#fill(String...)}.
+ */
+@JsonSerialize(using = PrebuiltKeyboard.Serializer.class)
+public final class PrebuiltKeyboard implements ReplyKeyboard {
+
+    private static final long serialVersionUID = 1L;
+
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String json;
+
+    PrebuiltKeyboard(String json) {
+        this.json = json;
+    }
+
+    /**
+     * Validates and serializes a keyboard.
+     *
+     * @param keyboard The keyboard to prebuild.
+     * @return A new {@link PrebuiltKeyboard}.
+     * @throws IllegalArgumentException If the keyboard is invalid.
+     */
+    static PrebuiltKeyboard of(ReplyKeyboard keyboard) {
+        return new PrebuiltKeyboard(toJson(keyboard));
+    }
+
+    /**
+     * Validates a keyboard and serializes it the way the Telegram API expects it.
+     *
+     * @param keyboard The keyboard to serialize.
+     * @return The keyboard JSON.
+     * @throws IllegalArgumentException If the keyboard is invalid.
+     */
+    static String toJson(ReplyKeyboard keyboard) {
+        try {
+            keyboard.validate();
+            return MAPPER.writeValueAsString(keyboard);
+        } catch (TelegramApiValidationException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid keyboard: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the serialized keyboard.
+     *
+     * @return The keyboard JSON.
+     */
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * Does nothing: the keyboard was validated when it was built.
+     */
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    static final class Serializer extends StdSerializer<PrebuiltKeyboard> {
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(PrebuiltKeyboard.class);
+        }
+
+        @Override
+        public void serialize(PrebuiltKeyboard keyboard, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeRawValue(keyboard.json);
+        }
+    }
+}